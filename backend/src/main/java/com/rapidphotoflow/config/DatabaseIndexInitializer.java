@@ -0,0 +1,77 @@
+package com.rapidphotoflow.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates Postgres-specific extensions, indexes and triggers that Hibernate's ddl-auto cannot express.
+ * Every statement is idempotent and failures are logged rather than fatal, since some
+ * environments may not grant the privileges needed to create extensions. Without pg_trgm,
+ * search falls back to ranking without filename similarity.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseIndexInitializer {
+
+    private static final List<String> STATEMENTS = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            // Substring and similarity search on filenames
+            "CREATE INDEX IF NOT EXISTS idx_photos_filename_trgm ON photos USING gin (filename gin_trgm_ops)",
+            // Prefix search on tags (LIKE 'abc%') regardless of collation
+            "CREATE INDEX IF NOT EXISTS idx_photo_tags_tag_prefix ON photo_tags (tag text_pattern_ops)",
+            // Change tracking for delta sync: stamp every write with the writing transaction's
+            // ID, and leave a tombstone for every delete, whichever code path performs it
+            """
+            CREATE OR REPLACE FUNCTION photos_set_change_xid() RETURNS trigger AS $$
+            BEGIN
+                NEW.change_xid := pg_current_xact_id()::text::bigint;
+                RETURN NEW;
+            END;
+            $$ LANGUAGE plpgsql
+            """,
+            """
+            CREATE OR REPLACE TRIGGER trg_photos_change_xid
+                BEFORE INSERT OR UPDATE ON photos
+                FOR EACH ROW EXECUTE FUNCTION photos_set_change_xid()
+            """,
+            // Superseded clock-time change tracking
+            "DROP TRIGGER IF EXISTS trg_photos_changed_at ON photos",
+            "DROP FUNCTION IF EXISTS photos_set_changed_at()",
+            "ALTER TABLE photos DROP COLUMN IF EXISTS changed_at",
+            """
+            CREATE OR REPLACE FUNCTION photos_write_tombstone() RETURNS trigger AS $$
+            BEGIN
+                INSERT INTO photo_tombstones (photo_id, deleted_at, change_xid)
+                VALUES (OLD.id, clock_timestamp(), pg_current_xact_id()::text::bigint)
+                ON CONFLICT (photo_id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at, change_xid = EXCLUDED.change_xid;
+                RETURN OLD;
+            END;
+            $$ LANGUAGE plpgsql
+            """,
+            """
+            CREATE OR REPLACE TRIGGER trg_photos_tombstone
+                AFTER DELETE ON photos
+                FOR EACH ROW EXECUTE FUNCTION photos_write_tombstone()
+            """
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        for (String statement : STATEMENTS) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (Exception e) {
+                log.warn("Failed to apply schema statement '{}': {}", statement, e.getMessage());
+            }
+        }
+    }
+}
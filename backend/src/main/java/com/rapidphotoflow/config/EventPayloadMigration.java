@@ -0,0 +1,111 @@
+package com.rapidphotoflow.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Converts event rows written with a rendered message into structured params (see EventLog),
+ * in batches walking (timestamp, id) so each batch is a short transaction. Params are parsed
+ * from the known message formats; the message is cleared unless its type needed params that
+ * could not be parsed, in which case it stays as the display text and params are set to {} so
+ * the row is not scanned again. Idempotent, so it simply picks up rows written by nodes still
+ * on the old version at the next start. Batches run on their own thread so startup does not wait.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventPayloadMigration {
+
+    private static final int BATCH_SIZE = 5000;
+
+    private static final String MIGRATE_BATCH = """
+            WITH batch AS (
+                SELECT id, "timestamp", event_type, message FROM event_logs
+                WHERE message IS NOT NULL AND params IS NULL AND ("timestamp", id) > (?, ?)
+                ORDER BY "timestamp", id
+                LIMIT ?
+            ), parsed AS (
+                SELECT id, "timestamp", event_type, NULLIF(jsonb_strip_nulls(CASE event_type
+                    WHEN 'PROCESSING_FAILED' THEN jsonb_build_object('reason', substring(message from '^Processing failed: .* - (.*)$'))
+                    WHEN 'TAG_ADDED' THEN jsonb_build_object('tag', substring(message from '^Tag ''(.*)'' added to '))
+                    WHEN 'TAG_REMOVED' THEN jsonb_build_object('tag', substring(message from '^Tag ''(.*)'' removed from '))
+                    WHEN 'AUTO_TAGGED' THEN jsonb_build_object('tags', substring(message from '^Auto-tagged with: (.*)$'))
+                    WHEN 'DELETED' THEN CASE WHEN message LIKE 'Duplicate removed: %'
+                        THEN jsonb_build_object(
+                            'file', substring(message from '^Duplicate removed: (.*) \\(kept \\w+ version\\)$'),
+                            'kept', substring(message from '\\(kept (\\w+) version\\)$'))
+                        ELSE jsonb_build_object('file', substring(message from '^Photo deleted: (.*)$'))
+                    END
+                END), '{}'::jsonb) AS params
+                FROM batch
+            ), updated AS (
+                UPDATE event_logs e SET
+                    params = CASE WHEN p.keep_message THEN '{}'::jsonb ELSE p.params END,
+                    message = CASE WHEN p.keep_message THEN e.message END
+                FROM (SELECT *, params IS NULL
+                        AND event_type IN ('PROCESSING_FAILED', 'TAG_ADDED', 'TAG_REMOVED', 'AUTO_TAGGED', 'DELETED')
+                        AS keep_message FROM parsed) p
+                WHERE e.id = p.id AND e."timestamp" = p."timestamp"
+            )
+            SELECT "timestamp", id FROM batch ORDER BY "timestamp" DESC, id DESC LIMIT 1
+            """;
+
+    private record Key(Timestamp timestamp, UUID id) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        try {
+            // New rows carry no message, so the column must accept NULL before anything else
+            List<String> nullable = jdbcTemplate.queryForList("SELECT is_nullable FROM information_schema.columns "
+                    + "WHERE table_schema = current_schema() AND table_name = 'event_logs' AND column_name = 'message'",
+                    String.class);
+            if (nullable.isEmpty()) {
+                return;
+            }
+            if ("NO".equals(nullable.get(0))) {
+                jdbcTemplate.execute("ALTER TABLE event_logs ALTER COLUMN message DROP NOT NULL");
+            }
+        } catch (Exception e) {
+            log.warn("Failed to migrate event log messages: {}", e.getMessage());
+            return;
+        }
+
+        Thread migration = new Thread(this::migrateBatches, "event-payload-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+
+    private void migrateBatches() {
+        try {
+            Key after = new Key(Timestamp.from(Instant.EPOCH), new UUID(0, 0));
+            long batches = 0;
+            while (true) {
+                Key last = jdbcTemplate.query(MIGRATE_BATCH,
+                        rs -> rs.next() ? new Key(rs.getTimestamp(1), rs.getObject(2, UUID.class)) : null,
+                        after.timestamp(), after.id(), BATCH_SIZE);
+                if (last == null) {
+                    break;
+                }
+                after = last;
+                batches++;
+            }
+            if (batches > 0) {
+                log.info("Migrated event log messages to structured params in {} batches", batches);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to migrate event log messages: {}", e.getMessage());
+        }
+    }
+}
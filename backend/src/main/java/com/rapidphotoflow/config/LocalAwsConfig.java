@@ -9,6 +9,8 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.net.URI;
 
@@ -23,6 +25,10 @@ public class LocalAwsConfig {
     @Value("${aws.s3.endpoint:http://localhost:4566}")
     private String s3Endpoint;
 
+    // Endpoint browsers use to fetch presigned URLs, if different from the one the backend uses
+    @Value("${aws.s3.public-endpoint:${aws.s3.endpoint:http://localhost:4566}}")
+    private String s3PublicEndpoint;
+
     @Bean
     @Primary
     public S3Client localS3Client() {
@@ -34,4 +40,18 @@ public class LocalAwsConfig {
                 .forcePathStyle(true) // Required for LocalStack
                 .build();
     }
+
+    @Bean
+    @Primary
+    public S3Presigner localS3Presigner() {
+        return S3Presigner.builder()
+                .endpointOverride(URI.create(s3PublicEndpoint))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create("test", "test")))
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(true)
+                        .build())
+                .build();
+    }
 }
@@ -38,7 +38,7 @@ public class SecurityConfig {
             // Authorization rules
             .authorizeHttpRequests(auth -> auth
                 // Public endpoints
-                .requestMatchers("/actuator/**").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html").permitAll()
 
                 // Allow OPTIONS requests (CORS preflight)
@@ -46,6 +46,7 @@ public class SecurityConfig {
 
                 // Photo content is public (needed for img tags and AI service)
                 .requestMatchers(HttpMethod.GET, "/api/photos/*/content").permitAll()
+                .requestMatchers(HttpMethod.HEAD, "/api/photos/*/content").permitAll()
 
                 // Tag endpoints are public (needed for AI service to apply auto-tags)
                 .requestMatchers(HttpMethod.POST, "/api/photos/*/tags").permitAll()
@@ -53,6 +54,9 @@ public class SecurityConfig {
                 // All other API endpoints require authentication
                 .requestMatchers("/api/**").authenticated()
 
+                // Metrics expose internals such as cache, route and job statistics
+                .requestMatchers("/actuator/**").authenticated()
+
                 // All other requests require authentication
                 .anyRequest().authenticated()
             )
@@ -91,9 +95,9 @@ public class SecurityConfig {
             "https://photos.basedsecurity.net",
             "https://d11qi9h0891nbd.cloudfront.net"
         ));
-        config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
+        config.setAllowedMethods(List.of("GET", "HEAD", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         config.setAllowedHeaders(List.of("*"));
-        config.setExposedHeaders(List.of("Authorization"));
+        config.setExposedHeaders(List.of("Authorization", "ETag", "Accept-Ranges", "Content-Range"));
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
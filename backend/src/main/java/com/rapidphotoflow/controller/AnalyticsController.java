@@ -0,0 +1,36 @@
+package com.rapidphotoflow.controller;
+
+import com.rapidphotoflow.dto.PipelineStatsDTO;
+import com.rapidphotoflow.service.PipelineAnalyticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@Tag(name = "Analytics", description = "Pipeline analytics endpoints")
+public class AnalyticsController {
+
+    private final PipelineAnalyticsService pipelineAnalyticsService;
+
+    @GetMapping("/pipeline")
+    @Operation(summary = "Get pipeline stats",
+            description = "Stage latency percentiles, throughput per step and failure rates by reason in [from, to), defaulting to the last 24 hours")
+    public ResponseEntity<PipelineStatsDTO> getPipelineStats(
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) UUID uploaderId,
+            @RequestParam(required = false, defaultValue = "60") int stepMinutes) {
+        try {
+            return ResponseEntity.ok(pipelineAnalyticsService.getPipelineStats(from, to, uploaderId, stepMinutes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
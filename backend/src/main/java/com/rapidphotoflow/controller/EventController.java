@@ -1,8 +1,10 @@
 package com.rapidphotoflow.controller;
 
+import com.rapidphotoflow.domain.EventLog;
 import com.rapidphotoflow.domain.EventType;
 import com.rapidphotoflow.dto.EventDTO;
 import com.rapidphotoflow.dto.EventListResponse;
+import com.rapidphotoflow.service.EventArchiveService;
 import com.rapidphotoflow.service.EventService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -10,6 +12,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -21,30 +24,54 @@ import java.util.stream.Collectors;
 public class EventController {
 
     private final EventService eventService;
+    private final EventArchiveService eventArchiveService;
+
+    private static final int MAX_LIMIT = 500;
 
     @GetMapping
-    @Operation(summary = "Get events", description = "Retrieve events with optional filters")
+    @Operation(summary = "Get events",
+            description = "Retrieve events newest first with optional filters, a page at a time; render=false returns type and params without messages")
     public ResponseEntity<EventListResponse> getEvents(
             @RequestParam(required = false) UUID photoId,
             @RequestParam(required = false) EventType type,
-            @RequestParam(required = false, defaultValue = "50") int limit) {
-
-        List<EventDTO> events;
-
-        if (photoId != null) {
-            events = eventService.getEventsByPhotoId(photoId).stream()
-                    .map(EventDTO::fromEntity)
-                    .collect(Collectors.toList());
-        } else if (type != null) {
-            events = eventService.getEventsByType(type).stream()
-                    .map(EventDTO::fromEntity)
-                    .collect(Collectors.toList());
-        } else {
-            events = eventService.getRecentEvents(limit).stream()
-                    .map(EventDTO::fromEntity)
-                    .collect(Collectors.toList());
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "50") int limit,
+            @RequestParam(required = false, defaultValue = "true") boolean render) {
+        EventService.EventPage page;
+        try {
+            page = eventService.getEvents(photoId, type, cursor, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(EventListResponse.of(toDtos(page.items(), render), page.nextCursor()));
+    }
+
+    @GetMapping("/archive")
+    @Operation(summary = "Search archived events",
+            description = "Newest events in [from, to) from partitions archived to S3 by retention; slow, scans every archive in range")
+    public ResponseEntity<EventListResponse> searchArchive(
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) UUID photoId,
+            @RequestParam(required = false) EventType type,
+            @RequestParam(required = false, defaultValue = "50") int limit,
+            @RequestParam(required = false, defaultValue = "true") boolean render) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
         }
 
-        return ResponseEntity.ok(EventListResponse.of(events));
+        List<EventLog> events = eventArchiveService.search(from, to, photoId, type, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        return ResponseEntity.ok(EventListResponse.of(toDtos(events, render)));
+    }
+
+    // Messages are rendered from type and params only when asked for, since that needs filenames
+    private List<EventDTO> toDtos(List<EventLog> events, boolean render) {
+        if (render) {
+            eventService.resolveFilenames(events);
+        }
+        return events.stream()
+                .map(event -> EventDTO.fromEntity(event, render))
+                .collect(Collectors.toList());
     }
 }
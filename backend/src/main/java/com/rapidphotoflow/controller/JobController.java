@@ -0,0 +1,114 @@
+package com.rapidphotoflow.controller;
+
+import com.rapidphotoflow.dto.BulkActionRequest;
+import com.rapidphotoflow.dto.BulkDeleteRequest;
+import com.rapidphotoflow.dto.BulkJobDTO;
+import com.rapidphotoflow.dto.GenerateRequest;
+import com.rapidphotoflow.service.BulkJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+@Tag(name = "Jobs", description = "Background bulk operations")
+public class JobController {
+
+    private final BulkJobService jobService;
+
+    @PostMapping("/bulk-action")
+    @Operation(summary = "Start bulk action job", description = "Approve, reject, or retry photos in the background")
+    public ResponseEntity<BulkJobDTO> startBulkAction(@Valid @RequestBody BulkActionRequest request) {
+        try {
+            return accepted(jobService.submitBulkAction(request.getAction(), request.getIds()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/bulk-delete")
+    @Operation(summary = "Start bulk delete job", description = "Delete photos in the background")
+    public ResponseEntity<BulkJobDTO> startBulkDelete(@Valid @RequestBody BulkDeleteRequest request) {
+        return accepted(jobService.submitBulkDelete(request.getIds()));
+    }
+
+    @PostMapping("/deduplicate")
+    @Operation(summary = "Start duplicate cleanup job", description = "Remove duplicate photos in the background")
+    public ResponseEntity<BulkJobDTO> startDeduplicate() {
+        return accepted(jobService.submitDeduplicate());
+    }
+
+    @PostMapping("/seed")
+    @Operation(summary = "Start seed job", description = "Create sample photos in the background")
+    public ResponseEntity<BulkJobDTO> startSeed(@RequestParam(defaultValue = "8") int count) {
+        try {
+            return accepted(jobService.submitSeed(count));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/generate")
+    @Operation(summary = "Start dataset generation job",
+            description = "Bulk-load a synthetic library for load testing; progress reports rows per second")
+    public ResponseEntity<BulkJobDTO> startGenerate(@Valid @RequestBody GenerateRequest request) {
+        try {
+            return accepted(jobService.submitGenerate(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping
+    @Operation(summary = "List jobs", description = "Most recently created jobs first")
+    public ResponseEntity<List<BulkJobDTO>> listJobs(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(jobService.listJobs(Math.max(1, Math.min(limit, 100))));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get job status", description = "Progress, throughput and per-item errors of a job")
+    public ResponseEntity<BulkJobDTO> getJob(@PathVariable UUID id) {
+        return jobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream job progress", description = "Push the job's state after every chunk until it finishes")
+    public ResponseEntity<SseEmitter> streamJob(@PathVariable UUID id) {
+        try {
+            return ResponseEntity.ok(jobService.subscribe(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/{id}/cancel")
+    @Operation(summary = "Cancel job", description = "Stop a queued or running job before its next chunk")
+    public ResponseEntity<BulkJobDTO> cancelJob(@PathVariable UUID id) {
+        try {
+            return ResponseEntity.ok(jobService.cancel(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    private ResponseEntity<BulkJobDTO> accepted(BulkJobDTO job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .body(job);
+    }
+}
@@ -7,25 +7,45 @@ import com.rapidphotoflow.dto.AddTagRequest;
 import com.rapidphotoflow.dto.BulkActionRequest;
 import com.rapidphotoflow.dto.BulkActionResponse;
 import com.rapidphotoflow.dto.BulkDeleteRequest;
+import com.rapidphotoflow.dto.ExportRequest;
+import com.rapidphotoflow.dto.FacetResponse;
+import com.rapidphotoflow.dto.PhotoChangesResponse;
 import com.rapidphotoflow.dto.PhotoDTO;
 import com.rapidphotoflow.dto.PhotoListResponse;
 import com.rapidphotoflow.dto.StatusCountDTO;
+import com.rapidphotoflow.dto.TagSuggestionDTO;
+import com.rapidphotoflow.repository.PhotoSummary;
+import com.rapidphotoflow.service.ContentUrlService;
+import com.rapidphotoflow.service.PhotoContentCache;
+import com.rapidphotoflow.service.PhotoContentStream;
+import com.rapidphotoflow.service.PhotoDerivativeService;
+import com.rapidphotoflow.service.PhotoExportService;
 import com.rapidphotoflow.service.PhotoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Instant;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -34,7 +54,13 @@ import java.util.stream.Collectors;
 @Tag(name = "Photos", description = "Photo management endpoints")
 public class PhotoController {
 
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
     private final PhotoService photoService;
+    private final ContentUrlService contentUrlService;
+    private final PhotoDerivativeService derivativeService;
+    private final PhotoContentCache contentCache;
+    private final PhotoExportService exportService;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Upload photos", description = "Upload one or more photos for processing")
@@ -53,36 +79,82 @@ public class PhotoController {
     @Operation(summary = "Get all photos", description = "Retrieve all photos with optional status and tag filters")
     public ResponseEntity<PhotoListResponse> getPhotos(
             @RequestParam(required = false) PhotoStatus status,
-            @RequestParam(required = false) String tag) {
+            @RequestParam(required = false) String tag,
+            WebRequest webRequest) {
 
-        List<Photo> photos;
-        if (status != null) {
-            photos = photoService.getPhotosByStatus(status);
-        } else {
-            photos = photoService.getAllPhotos();
+        String etag = "W/\"" + photoService.getListVersion(status, tag) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
         }
 
-        // Apply tag filter if provided
-        if (tag != null && !tag.isBlank()) {
-            String normalizedTag = tag.toLowerCase().trim();
-            photos = photos.stream()
-                    .filter(photo -> photo.getTags() != null && photo.getTags().contains(normalizedTag))
-                    .collect(Collectors.toList());
+        List<PhotoDTO> dtos = photoService.listPhotos(status, tag);
+        contentUrlService.embed(dtos);
+        return ResponseEntity.ok().eTag(etag).body(PhotoListResponse.of(dtos));
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Get photo changes", description = "Photos created, updated or deleted since a cursor, for polling clients")
+    public ResponseEntity<PhotoChangesResponse> getChanges(
+            @RequestParam(required = false) String since) {
+        PhotoChangesResponse changes = photoService.getChanges(since);
+        contentUrlService.embed(changes.getUpdated());
+        return ResponseEntity.ok(changes);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search photos", description = "Search filenames and tags, ranked by match quality")
+    public ResponseEntity<PhotoListResponse> searchPhotos(
+            @RequestParam String q,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "50") int size) {
+
+        if (q.isBlank() || page < 0 || size < 1 || size > 200) {
+            return ResponseEntity.badRequest().build();
         }
 
-        List<PhotoDTO> dtos = photos.stream()
+        Page<Photo> results = photoService.searchPhotos(q, page, size);
+        List<PhotoDTO> dtos = results.getContent().stream()
                 .map(PhotoDTO::fromEntity)
                 .collect(Collectors.toList());
+        contentUrlService.embed(dtos);
 
-        return ResponseEntity.ok(PhotoListResponse.of(dtos));
+        return ResponseEntity.ok(PhotoListResponse.builder()
+                .items(dtos)
+                .total(results.getTotalElements())
+                .hasMore(results.hasNext())
+                .build());
+    }
+
+    @GetMapping("/search/tags")
+    @Operation(summary = "Suggest tags", description = "Typeahead for tags starting with a prefix, most used first")
+    public ResponseEntity<List<TagSuggestionDTO>> suggestTags(
+            @RequestParam(required = false, defaultValue = "") String prefix,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        return ResponseEntity.ok(photoService.suggestTags(prefix, Math.max(1, Math.min(limit, 100))));
+    }
+
+    @GetMapping("/facets")
+    @Operation(summary = "Get tag facets", description = "Tag counts with a per-status breakdown, optionally filtered by status and uploader")
+    public ResponseEntity<FacetResponse> getFacets(
+            @RequestParam(required = false) PhotoStatus status,
+            @RequestParam(required = false) UUID uploaderId) {
+        return ResponseEntity.ok(FacetResponse.of(photoService.getTagFacets(status, uploaderId)));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get photo by ID", description = "Retrieve a specific photo by its ID")
-    public ResponseEntity<PhotoDTO> getPhotoById(@PathVariable UUID id) {
+    public ResponseEntity<PhotoDTO> getPhotoById(@PathVariable UUID id, WebRequest webRequest) {
         return photoService.getPhotoById(id)
-                .map(PhotoDTO::fromEntity)
-                .map(ResponseEntity::ok)
+                .map(photo -> {
+                    String etag = "W/\"" + photo.getUpdatedAt().toEpochMilli()
+                            + contentUrlService.getVersionSuffix() + "\"";
+                    if (webRequest.checkNotModified(etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<PhotoDTO>build();
+                    }
+                    PhotoDTO dto = PhotoDTO.fromEntity(photo);
+                    contentUrlService.embed(dto);
+                    return ResponseEntity.ok().eTag(etag).body(dto);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -98,19 +170,135 @@ public class PhotoController {
     }
 
     @GetMapping("/{id}/content")
-    @Operation(summary = "Get photo content", description = "Retrieve the actual image content")
-    public ResponseEntity<byte[]> getPhotoContent(@PathVariable UUID id) {
-        return photoService.getPhotoById(id)
-                .map(photo -> {
-                    byte[] content = photoService.getPhotoContent(id);
-                    if (content == null) {
-                        return ResponseEntity.notFound().<byte[]>build();
-                    }
-                    return ResponseEntity.ok()
-                            .contentType(MediaType.parseMediaType(photo.getMimeType()))
-                            .body(content);
-                })
-                .orElse(ResponseEntity.notFound().build());
+    @Operation(summary = "Get photo content", description = "Stream the image content, supporting single byte ranges, or redirect to a direct URL. "
+            + "w, h, fit (contain|cover) and format (jpeg|png) return a resized or converted copy instead")
+    public ResponseEntity<StreamingResponseBody> getPhotoContent(
+            @PathVariable UUID id,
+            @RequestParam(required = false) Integer w,
+            @RequestParam(required = false) Integer h,
+            @RequestParam(required = false) String fit,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            WebRequest webRequest) throws IOException {
+
+        Optional<Photo> photo = photoService.getPhotoById(id);
+        if (photo.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (w != null || h != null || fit != null || format != null) {
+            return getDerivative(photo.get(), w, h, fit, format, webRequest);
+        }
+
+        // Stored bytes never change, so a matching ETag is answered without touching S3
+        String etag = "\"" + photo.get().getContentKey() + "\"";
+        if (isNotModified(webRequest, etag, photo.get())) {
+            return immutableContent(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag, photo.get()).build();
+        }
+
+        if (contentUrlService.isRedirecting()) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(contentUrlService.getUrl(id)))
+                    .cacheControl(CacheControl.maxAge(contentUrlService.getReuseDuration()).cachePrivate())
+                    .build();
+        }
+
+        PhotoContentStream content;
+        try {
+            content = photoService.openPhotoContent(photo.get(), singleRange(rangeHeader));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + photoService.getPhotoContentLength(id))
+                    .build();
+        }
+        if (content == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ResponseEntity.BodyBuilder response = content.isPartial()
+                ? ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).header(HttpHeaders.CONTENT_RANGE, content.getContentRange())
+                : ResponseEntity.ok();
+
+        return immutableContent(response, etag, photo.get())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(MediaType.parseMediaType(photo.get().getMimeType()))
+                .contentLength(content.getContentLength())
+                .body(content::transferTo);
+    }
+
+    private ResponseEntity<StreamingResponseBody> getDerivative(
+            Photo photo, Integer w, Integer h, String fit, String format, WebRequest webRequest) throws IOException {
+        PhotoDerivativeService.Variant variant;
+        try {
+            variant = derivativeService.parseVariant(w, h, fit, format, photo.getMimeType());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String etag = "\"" + derivativeService.derivativeKey(photo, variant) + "\"";
+        if (isNotModified(webRequest, etag, photo)) {
+            return immutableContent(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag, photo).build();
+        }
+
+        PhotoContentStream content;
+        try {
+            content = derivativeService.open(photo, variant);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        if (content == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return immutableContent(ResponseEntity.ok(), etag, photo)
+                .contentType(MediaType.parseMediaType(variant.mimeType()))
+                .contentLength(content.getContentLength())
+                .body(content::transferTo);
+    }
+
+    @RequestMapping(value = "/{id}/content", method = RequestMethod.HEAD)
+    @Operation(summary = "Get photo content headers", description = "Content type and length without the body")
+    public ResponseEntity<Void> headPhotoContent(@PathVariable UUID id, WebRequest webRequest) {
+        Optional<Photo> photo = photoService.getPhotoById(id);
+        if (photo.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = "\"" + photo.get().getContentKey() + "\"";
+        if (isNotModified(webRequest, etag, photo.get())) {
+            return immutableContent(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag, photo.get()).build();
+        }
+
+        long length = photoService.getPhotoContentLength(id);
+        if (length < 0) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return immutableContent(ResponseEntity.ok(), etag, photo.get())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(MediaType.parseMediaType(photo.get().getMimeType()))
+                .contentLength(length)
+                .build();
+    }
+
+    private boolean isNotModified(WebRequest webRequest, String etag, Photo photo) {
+        if (webRequest.checkNotModified(etag, photo.getUploadedAt().toEpochMilli())) {
+            contentCache.recordNotModified();
+            return true;
+        }
+        return false;
+    }
+
+    // Content for a given ETag never changes, so it may be cached for a year without revalidation
+    private ResponseEntity.BodyBuilder immutableContent(ResponseEntity.BodyBuilder response, String etag, Photo photo) {
+        return response
+                .eTag(etag)
+                .lastModified(photo.getUploadedAt())
+                .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL);
     }
 
     @PostMapping("/{id}/action")
@@ -141,90 +329,57 @@ public class PhotoController {
     @Operation(summary = "Perform bulk action on photos", description = "Approve, reject, or retry multiple photos")
     public ResponseEntity<BulkActionResponse> performBulkAction(
             @Valid @RequestBody BulkActionRequest request) {
-
-        List<PhotoDTO> successPhotos = new ArrayList<>();
-        Map<String, String> errors = new HashMap<>();
-
-        for (UUID id : request.getIds()) {
-            try {
-                Photo photo;
-                switch (request.getAction()) {
-                    case "approve":
-                        photo = photoService.approve(id);
-                        break;
-                    case "reject":
-                        photo = photoService.reject(id);
-                        break;
-                    case "retry":
-                        photo = photoService.retry(id);
-                        break;
-                    default:
-                        errors.put(id.toString(), "Invalid action: " + request.getAction());
-                        continue;
-                }
-                successPhotos.add(PhotoDTO.fromEntity(photo));
-            } catch (Exception e) {
-                errors.put(id.toString(), e.getMessage());
-            }
-        }
-
-        return ResponseEntity.ok(BulkActionResponse.builder()
-                .success(successPhotos)
-                .errors(errors)
-                .successCount(successPhotos.size())
-                .errorCount(errors.size())
-                .build());
+        return ResponseEntity.ok(photoService.bulkAction(request.getAction(), request.getIds()));
     }
 
     @PostMapping("/bulk-delete")
     @Operation(summary = "Bulk delete photos", description = "Delete multiple photos at once")
     public ResponseEntity<BulkActionResponse> bulkDelete(
             @Valid @RequestBody BulkDeleteRequest request) {
+        return ResponseEntity.ok(photoService.bulkDelete(request.getIds()));
+    }
 
-        List<PhotoDTO> deletedPhotos = new ArrayList<>();
-        Map<String, String> errors = new HashMap<>();
-
-        for (UUID id : request.getIds()) {
-            try {
-                photoService.getPhotoById(id).ifPresent(photo -> {
-                    deletedPhotos.add(PhotoDTO.fromEntity(photo));
-                });
-                photoService.delete(id);
-            } catch (Exception e) {
-                errors.put(id.toString(), e.getMessage());
-            }
-        }
-
-        return ResponseEntity.ok(BulkActionResponse.builder()
-                .success(deletedPhotos)
-                .errors(errors)
-                .successCount(deletedPhotos.size())
-                .errorCount(errors.size())
-                .build());
+    @PostMapping("/export")
+    @Operation(summary = "Export photos", description = "Stream a ZIP of the given photo IDs, or of all photos matching status and tag filters")
+    public ResponseEntity<StreamingResponseBody> exportPhotos(@RequestBody ExportRequest request) {
+        List<PhotoSummary> photos = exportService.resolve(request);
+        if (photos.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String filename = "photos-export-" + Instant.now().getEpochSecond() + ".zip";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(out -> exportService.writeZip(photos, out));
     }
 
     @GetMapping("/counts")
     @Operation(summary = "Get status counts", description = "Get count of photos in each status")
-    public ResponseEntity<List<StatusCountDTO>> getStatusCounts() {
-        List<StatusCountDTO> counts = Arrays.stream(PhotoStatus.values())
-                .map(status -> StatusCountDTO.builder()
-                        .status(status)
-                        .count(photoService.getPhotoCountByStatus(status))
+    public ResponseEntity<List<StatusCountDTO>> getStatusCounts(WebRequest webRequest) {
+        Map<PhotoStatus, Long> statusCounts = photoService.getStatusCounts();
+        // Built from the counts themselves so equal counts give the same tag on every node
+        String etag = Arrays.stream(PhotoStatus.values())
+                .map(status -> status.name() + "=" + statusCounts.getOrDefault(status, 0L))
+                .collect(Collectors.joining(",", "W/\"", "\""));
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        List<StatusCountDTO> counts = statusCounts.entrySet().stream()
+                .map(entry -> StatusCountDTO.builder()
+                        .status(entry.getKey())
+                        .count(entry.getValue())
                         .build())
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(counts);
+        return ResponseEntity.ok().eTag(etag).body(counts);
     }
 
     @DeleteMapping("/duplicates")
     @Operation(summary = "Remove duplicates", description = "Find and remove duplicate photos based on content hash")
     public ResponseEntity<PhotoListResponse> removeDuplicates() {
-        List<Photo> removed = photoService.deleteDuplicates();
-        List<PhotoDTO> dtos = removed.stream()
-                .map(PhotoDTO::fromEntity)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(PhotoListResponse.of(dtos));
+        return ResponseEntity.ok(PhotoListResponse.of(photoService.deleteDuplicates()));
     }
 
     @PostMapping("/{id}/tags")
@@ -252,4 +407,17 @@ public class PhotoController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    // Only a single, well-formed range is honoured; anything else gets the full content
+    private String singleRange(String rangeHeader) {
+        if (rangeHeader == null || rangeHeader.isBlank()) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? HttpRange.toString(ranges) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,35 @@
+package com.rapidphotoflow.controller;
+
+import com.rapidphotoflow.domain.PhotoStatus;
+import com.rapidphotoflow.service.StreamBroadcaster;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/stream")
+@RequiredArgsConstructor
+@Tag(name = "Stream", description = "Server-Sent Events stream of photo changes")
+public class StreamController {
+
+    private final StreamBroadcaster streamBroadcaster;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream photo events",
+            description = "Push status transitions, tag changes and event log entries as they happen, "
+                    + "optionally filtered by uploader, status or photo")
+    public SseEmitter stream(
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) PhotoStatus status,
+            @RequestParam(required = false) UUID photoId) {
+        return streamBroadcaster.subscribe(new StreamBroadcaster.StreamFilter(userId, status, photoId));
+    }
+}
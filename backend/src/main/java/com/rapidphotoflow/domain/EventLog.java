@@ -4,24 +4,60 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.time.Instant;
+import java.util.Map;
 import java.util.UUID;
 
+/**
+ * A photo lifecycle event. Events are stored as their type plus the few parameters the type
+ * needs; the display message is rendered from them on read (see EventDTO). The photo's
+ * filename is not stored, except on DELETED events, since the photo row it comes from is gone.
+ */
 @Data
 @Builder
 public class EventLog {
+
+    // Parameter keys, kept short since they are stored with every event that has them
+    public static final String FILENAME = "file";
+    public static final String TAG = "tag";
+    public static final String TAGS = "tags";
+    public static final String REASON = "reason";
+    public static final String KEPT_STATUS = "kept";
+
     private UUID id;
     private UUID photoId;
     private EventType type;
+    // Null when the type needs none
+    private Map<String, String> params;
+    // Rendered message of events stored before payloads were structured, if not yet migrated
     private String message;
     private Instant timestamp;
+    // Not stored: filled from the photo for rendering
+    private String filename;
+    // Not stored: the photo's state when the event was logged, broadcast for stream filters.
+    // Null if unknown, e.g. once the photo is gone
+    private PhotoStatus photoStatus;
+    private UUID uploadedByUserId;
+
+    public static EventLog create(UUID photoId, PhotoStatus photoStatus, UUID uploadedByUserId,
+                                  EventType type, String filename) {
+        return create(photoId, photoStatus, uploadedByUserId, type, filename, null);
+    }
 
-    public static EventLog create(UUID photoId, EventType type, String message) {
+    public static EventLog create(UUID photoId, PhotoStatus photoStatus, UUID uploadedByUserId,
+                                  EventType type, String filename, Map<String, String> params) {
         return EventLog.builder()
                 .id(UUID.randomUUID())
                 .photoId(photoId)
                 .type(type)
-                .message(message)
+                .params(params == null || params.isEmpty() ? null : params)
                 .timestamp(Instant.now())
+                .filename(filename)
+                .photoStatus(photoStatus)
+                .uploadedByUserId(uploadedByUserId)
                 .build();
     }
+
+    public String getParam(String key) {
+        return params != null ? params.get(key) : null;
+    }
 }
@@ -0,0 +1,9 @@
+package com.rapidphotoflow.domain;
+
+public enum JobType {
+    BULK_ACTION,
+    BULK_DELETE,
+    DEDUPLICATE,
+    SEED,
+    GENERATE
+}
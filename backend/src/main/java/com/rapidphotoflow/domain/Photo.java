@@ -42,6 +42,18 @@ public class Photo {
         }
     }
 
+    /**
+     * Identifies the stored bytes: the content hash, or the ID (as hex) for photos stored without one.
+     */
+    public String getContentKey() {
+        return contentKey(id, contentHash);
+    }
+
+    // Content hash, or the ID for photos stored before hashes were recorded
+    public static String contentKey(UUID id, String contentHash) {
+        return contentHash != null ? contentHash : id.toString().replace("-", "");
+    }
+
     public static Photo createPending(String filename, String mimeType, long sizeBytes, byte[] content) {
         Instant now = Instant.now();
         return Photo.builder()
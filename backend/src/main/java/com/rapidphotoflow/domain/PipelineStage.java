@@ -0,0 +1,15 @@
+package com.rapidphotoflow.domain;
+
+/**
+ * Stages of the photo pipeline whose latency is tracked, each measured between two events.
+ */
+public enum PipelineStage {
+    // Upload or retry request until processing starts
+    QUEUED,
+    // Processing start until it completes or fails
+    PROCESSING,
+    // Processing end until the photo is approved or rejected
+    REVIEW,
+    // Upload until the photo is approved or rejected
+    END_TO_END
+}
@@ -0,0 +1,83 @@
+package com.rapidphotoflow.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.rapidphotoflow.domain.JobStatus;
+import com.rapidphotoflow.domain.JobType;
+import com.rapidphotoflow.entity.BulkJobEntity;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+public class BulkJobDTO {
+    private UUID id;
+    private JobType type;
+    private JobStatus status;
+    private String action;
+    private int totalItems;
+    private int processedItems;
+    private int succeededItems;
+    private int failedItems;
+    private double percentComplete;
+    // Items per second since the job started
+    private double itemsPerSecond;
+    // Database rows written and their rate, only for jobs that bulk-load
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long rowsWritten;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double rowsPerSecond;
+    // Null until there is a throughput to extrapolate from
+    private Long estimatedSecondsRemaining;
+    private String errorMessage;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant updatedAt;
+    private Instant finishedAt;
+    // Per-item failures by item ID; only included in status responses
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, String> errors;
+
+    public static BulkJobDTO fromEntity(BulkJobEntity job) {
+        Instant end = job.getFinishedAt() != null ? job.getFinishedAt() : Instant.now();
+        double seconds = job.getStartedAt() != null ? Duration.between(job.getStartedAt(), end).toMillis() / 1000.0 : 0;
+        double rate = seconds > 0 ? job.getProcessedItems() / seconds : 0;
+        int remaining = Math.max(0, job.getTotalItems() - job.getProcessedItems());
+
+        return BulkJobDTO.builder()
+                .id(job.getId())
+                .type(job.getType())
+                .status(job.getStatus())
+                .action(job.getAction())
+                .totalItems(job.getTotalItems())
+                .processedItems(job.getProcessedItems())
+                .succeededItems(job.getSucceededItems())
+                .failedItems(job.getFailedItems())
+                .percentComplete(percentComplete(job))
+                .itemsPerSecond(rate)
+                .rowsWritten(job.getRowsWritten() > 0 ? job.getRowsWritten() : null)
+                .rowsPerSecond(job.getRowsWritten() > 0 && seconds > 0 ? job.getRowsWritten() / seconds : null)
+                .estimatedSecondsRemaining(!job.getStatus().isFinished() && rate > 0 ? (long) Math.ceil(remaining / rate) : null)
+                .errorMessage(job.getErrorMessage())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .updatedAt(job.getUpdatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+    // Totals for duplicate cleanup are estimated up front, so clamp and finish at 100
+    private static double percentComplete(BulkJobEntity job) {
+        if (job.getStatus() == JobStatus.COMPLETED) {
+            return 100.0;
+        }
+        if (job.getTotalItems() <= 0) {
+            return 0.0;
+        }
+        return Math.min(100.0, 100.0 * job.getProcessedItems() / job.getTotalItems());
+    }
+}
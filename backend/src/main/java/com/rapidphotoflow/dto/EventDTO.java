@@ -1,29 +1,70 @@
 package com.rapidphotoflow.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.rapidphotoflow.domain.EventLog;
 import com.rapidphotoflow.domain.EventType;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.Map;
 import java.util.UUID;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class EventDTO {
     private UUID id;
     private UUID photoId;
     private EventType type;
+    private Map<String, String> params;
+    // Only when rendering was requested
     private String message;
     private Instant timestamp;
 
     public static EventDTO fromEntity(EventLog event) {
+        return fromEntity(event, true);
+    }
+
+    public static EventDTO fromEntity(EventLog event, boolean render) {
         return EventDTO.builder()
                 .id(event.getId())
                 .photoId(event.getPhotoId())
                 .type(event.getType())
-                .message(event.getMessage())
+                .params(event.getParams())
+                .message(render ? render(event) : null)
                 .timestamp(event.getTimestamp())
                 .build();
     }
+
+    /**
+     * The human-readable message for an event. Falls back to "photo" phrasing when the
+     * filename is unknown.
+     */
+    public static String render(EventLog event) {
+        if (event.getMessage() != null) {
+            return event.getMessage();
+        }
+        String filename = event.getFilename() != null ? event.getFilename() : event.getParam(EventLog.FILENAME);
+        String file = filename != null ? filename : "photo";
+        return switch (event.getType()) {
+            case PHOTO_CREATED -> "Photo uploaded: " + file;
+            case PROCESSING_STARTED -> "Processing started: " + file;
+            case PROCESSING_COMPLETED -> "Processing completed: " + file;
+            case PROCESSING_FAILED -> "Processing failed: " + file + " - " + event.getParam(EventLog.REASON);
+            case APPROVED -> "Photo approved: " + file;
+            case REJECTED -> "Photo rejected: " + file;
+            case DELETED -> event.getParam(EventLog.KEPT_STATUS) != null
+                    ? "Duplicate removed: " + file + " (kept " + event.getParam(EventLog.KEPT_STATUS) + " version)"
+                    : "Photo deleted: " + file;
+            case RETRY_REQUESTED -> "Retry requested: " + file;
+            case TAG_ADDED -> "Tag '" + event.getParam(EventLog.TAG) + "' added to " + file;
+            case TAG_REMOVED -> "Tag '" + event.getParam(EventLog.TAG) + "' removed from " + file;
+            case AUTO_TAGGED -> "Auto-tagged with: " + event.getParam(EventLog.TAGS);
+        };
+    }
 }
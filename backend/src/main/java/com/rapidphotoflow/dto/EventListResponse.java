@@ -9,10 +9,17 @@ import java.util.List;
 @Builder
 public class EventListResponse {
     private List<EventDTO> items;
+    // Pass as 'cursor' for the next page; null on the last page
+    private String nextCursor;
 
     public static EventListResponse of(List<EventDTO> items) {
+        return of(items, null);
+    }
+
+    public static EventListResponse of(List<EventDTO> items, String nextCursor) {
         return EventListResponse.builder()
                 .items(items)
+                .nextCursor(nextCursor)
                 .build();
     }
 }
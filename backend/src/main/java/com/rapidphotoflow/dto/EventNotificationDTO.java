@@ -0,0 +1,26 @@
+package com.rapidphotoflow.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.rapidphotoflow.domain.PhotoStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * An event as broadcast between nodes, with the photo's status and uploader as known to the
+ * code that logged it, so stream filters need no lookup.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EventNotificationDTO {
+    private EventDTO event;
+    // Null if the logging code did not know them
+    private PhotoStatus status;
+    private UUID uploadedByUserId;
+}
@@ -0,0 +1,17 @@
+package com.rapidphotoflow.dto;
+
+import com.rapidphotoflow.domain.PhotoStatus;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Photos to export: explicit IDs, or else every photo matching the optional filters.
+ */
+@Data
+public class ExportRequest {
+    private List<UUID> ids;
+    private PhotoStatus status;
+    private String tag;
+}
@@ -0,0 +1,18 @@
+package com.rapidphotoflow.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class FacetResponse {
+    private List<TagFacetDTO> tags;
+
+    public static FacetResponse of(List<TagFacetDTO> tags) {
+        return FacetResponse.builder()
+                .tags(tags)
+                .build();
+    }
+}
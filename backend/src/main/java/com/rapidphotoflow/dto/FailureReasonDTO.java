@@ -0,0 +1,13 @@
+package com.rapidphotoflow.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class FailureReasonDTO {
+    private String reason;
+    private long count;
+    // Share of finished processing attempts that failed for this reason
+    private double rate;
+}
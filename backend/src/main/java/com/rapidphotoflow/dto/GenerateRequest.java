@@ -0,0 +1,61 @@
+package com.rapidphotoflow.dto;
+
+import com.rapidphotoflow.domain.PhotoStatus;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Shape of a synthetic dataset for load testing. Every field has a default.
+ */
+@Data
+public class GenerateRequest {
+    @Min(1)
+    @Max(10_000_000)
+    private int count = 1000;
+
+    // Relative weight per status; statuses left out are not generated. Defaults to the demo mix,
+    // without PENDING unless uploadObjects is set. PENDING requires uploadObjects.
+    private Map<PhotoStatus, Double> statusWeights;
+
+    @Min(1)
+    @Max(100_000)
+    private int tagVocabularySize = 500;
+
+    // Each photo gets between 0 and this many distinct tags
+    @Min(0)
+    @Max(50)
+    private int maxTagsPerPhoto = 5;
+
+    // Zipf exponent for tag popularity; 0 is uniform
+    @DecimalMin("0.0")
+    private double tagSkew = 1.0;
+
+    // Synthetic users photos are attributed to; 0 leaves photos without an uploader
+    @Min(0)
+    @Max(100_000)
+    private int uploaders = 50;
+
+    // Zipf exponent for photos per uploader; 0 is uniform
+    @DecimalMin("0.0")
+    private double uploaderSkew = 1.0;
+
+    // Uploads are spread over this many days before now
+    @Min(1)
+    private int spreadDays = 90;
+
+    // Fraction of photos sharing content with an earlier photo
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double duplicateRate = 0.0;
+
+    // Write a placeholder object to S3 for every photo; required for PENDING photos to process
+    private boolean uploadObjects = false;
+
+    // Makes the dataset reproducible
+    private Long randomSeed;
+}
@@ -0,0 +1,20 @@
+package com.rapidphotoflow.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+public class PhotoChangesResponse {
+    // Photos created or updated since the cursor (may repeat recent changes)
+    private List<PhotoDTO> updated;
+    // IDs of photos deleted since the cursor
+    private List<UUID> deleted;
+    // Opaque cursor to pass as 'since' on the next call
+    private String cursor;
+    // True when the client must replace its local copy instead of merging
+    private boolean reset;
+}
@@ -1,5 +1,6 @@
 package com.rapidphotoflow.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.rapidphotoflow.domain.Photo;
 import com.rapidphotoflow.domain.PhotoStatus;
 import lombok.Builder;
@@ -23,6 +24,9 @@ public class PhotoDTO {
     private Instant updatedAt;
     private List<String> tags;
     private String uploadedByUsername;
+    // Direct content URL, only present when content delivery embeds URLs
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String contentUrl;
 
     public static PhotoDTO fromEntity(Photo photo) {
         return PhotoDTO.builder()
@@ -0,0 +1,25 @@
+package com.rapidphotoflow.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+public class PipelineStatsDTO {
+    private Instant from;
+    private Instant to;
+    private UUID uploaderId;
+    private int stepMinutes;
+    private List<StageLatencyDTO> stages;
+    private List<ThroughputPointDTO> throughput;
+    private long uploaded;
+    private long processed;
+    private long failed;
+    // Failed share of finished processing attempts
+    private double failureRate;
+    private List<FailureReasonDTO> failures;
+}
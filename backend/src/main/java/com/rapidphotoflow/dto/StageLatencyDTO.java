@@ -0,0 +1,16 @@
+package com.rapidphotoflow.dto;
+
+import com.rapidphotoflow.domain.PipelineStage;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class StageLatencyDTO {
+    private PipelineStage stage;
+    private long count;
+    private long meanMs;
+    private long p50Ms;
+    private long p95Ms;
+    private long p99Ms;
+}
@@ -0,0 +1,12 @@
+package com.rapidphotoflow.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class StreamEventDTO {
+    private EventDTO event;
+    // Current state of the photo, or null if it has been deleted
+    private PhotoDTO photo;
+}
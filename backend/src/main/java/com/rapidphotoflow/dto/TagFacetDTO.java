@@ -0,0 +1,15 @@
+package com.rapidphotoflow.dto;
+
+import com.rapidphotoflow.domain.PhotoStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class TagFacetDTO {
+    private String tag;
+    private long count;
+    private Map<PhotoStatus, Long> byStatus;
+}
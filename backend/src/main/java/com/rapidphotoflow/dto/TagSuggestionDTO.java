@@ -0,0 +1,11 @@
+package com.rapidphotoflow.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class TagSuggestionDTO {
+    private String tag;
+    private long count;
+}
@@ -0,0 +1,17 @@
+package com.rapidphotoflow.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class ThroughputPointDTO {
+    private Instant start;
+    private long uploaded;
+    private long processed;
+    private long failed;
+    private long approved;
+    private long rejected;
+}
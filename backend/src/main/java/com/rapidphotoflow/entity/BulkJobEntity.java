@@ -0,0 +1,95 @@
+package com.rapidphotoflow.entity;
+
+import com.rapidphotoflow.domain.JobStatus;
+import com.rapidphotoflow.domain.JobType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A bulk operation run in chunks by the job runner.
+ * Progress columns are the checkpoint: they are updated in the same transaction as each
+ * chunk, so a job picked up again after a crash continues exactly where it stopped.
+ */
+@Entity
+@Table(name = "bulk_jobs", indexes = {
+        @Index(name = "idx_bulk_jobs_status_updated_at", columnList = "status, updated_at"),
+        @Index(name = "idx_bulk_jobs_created_at", columnList = "created_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkJobEntity {
+
+    @Id
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status;
+
+    // approve, reject or retry for bulk actions
+    private String action;
+
+    // Target photos for bulk actions and deletes, in request order
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "item_ids", columnDefinition = "uuid[]")
+    private UUID[] itemIds;
+
+    @Column(name = "total_items", nullable = false)
+    private int totalItems;
+
+    // Items handled so far; also the offset into itemIds of the next chunk
+    @Column(name = "processed_items", nullable = false)
+    private int processedItems;
+
+    @Column(name = "succeeded_items", nullable = false)
+    private int succeededItems;
+
+    @Column(name = "failed_items", nullable = false)
+    private int failedItems;
+
+    // Request body for jobs configured by one, as JSON
+    @Column(columnDefinition = "text")
+    private String parameters;
+
+    // Database rows written, for jobs that bulk-load
+    @Column(name = "rows_written", nullable = false, columnDefinition = "bigint not null default 0")
+    private long rowsWritten;
+
+    // Content hash cursor for duplicate cleanup
+    @Column(name = "resume_cursor")
+    private String resumeCursor;
+
+    @Column(name = "error_message", length = 2000)
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    // Doubles as the heartbeat of a running job, renewed independently of chunk commits
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // New on every claim; progress and completion are only written by the runner holding it
+    @Column(name = "lease_token")
+    private UUID leaseToken;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+}
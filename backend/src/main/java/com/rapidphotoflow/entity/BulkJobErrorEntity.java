@@ -0,0 +1,40 @@
+package com.rapidphotoflow.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A per-item failure reported by a bulk job chunk.
+ */
+@Entity
+@Table(name = "bulk_job_errors", indexes = {
+        @Index(name = "idx_bulk_job_errors_job_id", columnList = "job_id, created_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkJobErrorEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "job_id", nullable = false)
+    private UUID jobId;
+
+    @Column(name = "item_id", nullable = false)
+    private String itemId;
+
+    @Column(nullable = false, length = 2000)
+    private String message;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
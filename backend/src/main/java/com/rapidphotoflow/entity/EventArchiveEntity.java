@@ -0,0 +1,52 @@
+package com.rapidphotoflow.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An event log partition that aged out of the database and was archived to S3 as
+ * gzipped NDJSON, one event per line in timestamp order.
+ */
+@Entity
+@Table(name = "event_archives", indexes = {
+        @Index(name = "idx_event_archives_range", columnList = "range_end, range_start")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventArchiveEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "partition_name", nullable = false)
+    private String partitionName;
+
+    // Name under the archives/ prefix of the photo bucket
+    @Column(name = "object_name", nullable = false)
+    private String objectName;
+
+    // Events archived have range_start <= timestamp < range_end
+    @Column(name = "range_start", nullable = false)
+    private Instant rangeStart;
+
+    @Column(name = "range_end", nullable = false)
+    private Instant rangeEnd;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+}
@@ -6,12 +6,20 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
+import java.util.Map;
 import java.util.UUID;
 
 @Entity
-@Table(name = "event_logs")
+// Trailing id columns give keyset pages a total order without a sort step
+@Table(name = "event_logs", indexes = {
+        @Index(name = "idx_event_logs_timestamp_id", columnList = "timestamp, id"),
+        @Index(name = "idx_event_logs_photo_id_timestamp", columnList = "photo_id, timestamp, id"),
+        @Index(name = "idx_event_logs_event_type_timestamp", columnList = "event_type, timestamp, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -29,7 +37,13 @@ public class EventLogEntity {
     @Column(name = "event_type", nullable = false)
     private EventType eventType;
 
-    @Column(nullable = false)
+    // Parameters of the event type, e.g. {"tag": "beach"}; null when it has none
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
+    private Map<String, String> params;
+
+    // Rendered message of rows written before params; cleared as they are migrated
+    @Column
     private String message;
 
     @Column(nullable = false)
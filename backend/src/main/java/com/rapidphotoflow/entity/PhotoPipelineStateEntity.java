@@ -0,0 +1,51 @@
+package com.rapidphotoflow.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * When a photo last entered each pipeline stage, so the latency of the next transition can
+ * be measured as its event arrives. Maintained by PipelineAnalyticsService.
+ */
+@Entity
+@Table(name = "photo_pipeline_state", indexes = {
+        @Index(name = "idx_photo_pipeline_state_updated_at", columnList = "updated_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoPipelineStateEntity {
+
+    @Id
+    @Column(name = "photo_id")
+    private UUID photoId;
+
+    @Column(name = "uploader_id")
+    private UUID uploaderId;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    // Upload or latest retry request
+    @Column(name = "queued_at")
+    private Instant queuedAt;
+
+    @Column(name = "processing_started_at")
+    private Instant processingStartedAt;
+
+    @Column(name = "processing_finished_at")
+    private Instant processingFinishedAt;
+
+    @Column(name = "reviewed_at")
+    private Instant reviewedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,37 @@
+package com.rapidphotoflow.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Record of a deleted photo so polling clients can drop it from their local copy.
+ * Rows are written by a database trigger on photos and pruned after the retention period.
+ */
+@Entity
+@Table(name = "photo_tombstones", indexes = {
+        @Index(name = "idx_photo_tombstones_deleted_at", columnList = "deleted_at"),
+        @Index(name = "idx_photo_tombstones_change_xid", columnList = "change_xid")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoTombstoneEntity {
+
+    @Id
+    @Column(name = "photo_id")
+    private UUID photoId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+
+    // ID of the deleting transaction (see PhotoEntity#changeXid)
+    @Column(name = "change_xid")
+    private Long changeXid;
+}
@@ -0,0 +1,58 @@
+package com.rapidphotoflow.entity;
+
+import com.rapidphotoflow.domain.EventType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Count of one pipeline event type for one minute and uploader, split by failure reason for
+ * PROCESSING_FAILED. Source of throughput and failure rates.
+ */
+@Entity
+@Table(name = "pipeline_event_buckets")
+@IdClass(PipelineEventBucketEntity.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineEventBucketEntity {
+
+    @Id
+    @Column(name = "bucket_start")
+    private Instant bucketStart;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type")
+    private EventType eventType;
+
+    // Nil UUID for photos without an uploader
+    @Id
+    @Column(name = "uploader_id")
+    private UUID uploaderId;
+
+    // Empty unless the event is a failure
+    @Id
+    @Column(name = "reason")
+    private String reason;
+
+    @Column(name = "count", nullable = false)
+    private long count;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Instant bucketStart;
+        private EventType eventType;
+        private UUID uploaderId;
+        private String reason;
+    }
+}
@@ -0,0 +1,61 @@
+package com.rapidphotoflow.entity;
+
+import com.rapidphotoflow.domain.PipelineStage;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Latency histogram of one pipeline stage for one minute and uploader. Latencies fall into
+ * logarithmic bins (see PipelineAnalyticsService), so percentiles over any range are computed
+ * by summing bins rather than reading events.
+ */
+@Entity
+@Table(name = "pipeline_latency_buckets")
+@IdClass(PipelineLatencyBucketEntity.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PipelineLatencyBucketEntity {
+
+    @Id
+    @Column(name = "bucket_start")
+    private Instant bucketStart;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "stage")
+    private PipelineStage stage;
+
+    // Nil UUID for photos without an uploader
+    @Id
+    @Column(name = "uploader_id")
+    private UUID uploaderId;
+
+    @Id
+    @Column(name = "bin")
+    private int bin;
+
+    @Column(name = "count", nullable = false)
+    private long count;
+
+    @Column(name = "sum_ms", nullable = false)
+    private long sumMs;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Instant bucketStart;
+        private PipelineStage stage;
+        private UUID uploaderId;
+        private int bin;
+    }
+}
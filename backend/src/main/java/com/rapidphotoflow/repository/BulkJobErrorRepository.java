@@ -0,0 +1,23 @@
+package com.rapidphotoflow.repository;
+
+import com.rapidphotoflow.entity.BulkJobErrorEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BulkJobErrorRepository extends JpaRepository<BulkJobErrorEntity, UUID> {
+
+    List<BulkJobErrorEntity> findByJobIdOrderByCreatedAt(UUID jobId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM BulkJobErrorEntity e WHERE e.jobId IN :jobIds")
+    int deleteByJobIds(@Param("jobIds") Collection<UUID> jobIds);
+}
@@ -0,0 +1,81 @@
+package com.rapidphotoflow.repository;
+
+import com.rapidphotoflow.domain.JobStatus;
+import com.rapidphotoflow.entity.BulkJobEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BulkJobRepository extends JpaRepository<BulkJobEntity, UUID> {
+
+    List<BulkJobEntity> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    @Query("SELECT j.status FROM BulkJobEntity j WHERE j.id = :id")
+    JobStatus findStatusById(@Param("id") UUID id);
+
+    // Queued jobs, and running jobs whose runner stopped sending heartbeats
+    @Query("SELECT j.id FROM BulkJobEntity j " +
+            "WHERE j.status = com.rapidphotoflow.domain.JobStatus.QUEUED " +
+            "OR (j.status = com.rapidphotoflow.domain.JobStatus.RUNNING AND j.updatedAt < :staleBefore) " +
+            "ORDER BY j.createdAt")
+    List<UUID> findRunnableIds(@Param("staleBefore") Instant staleBefore);
+
+    // Atomically take ownership of a runnable job under a new lease token; returns 0 if
+    // another runner got it first
+    @Modifying
+    @Query("UPDATE BulkJobEntity j SET j.status = com.rapidphotoflow.domain.JobStatus.RUNNING, " +
+            "j.startedAt = COALESCE(j.startedAt, :now), j.updatedAt = :now, j.leaseToken = :token " +
+            "WHERE j.id = :id AND (j.status = com.rapidphotoflow.domain.JobStatus.QUEUED " +
+            "OR (j.status = com.rapidphotoflow.domain.JobStatus.RUNNING AND j.updatedAt < :staleBefore))")
+    int claim(@Param("id") UUID id, @Param("token") UUID token, @Param("now") Instant now,
+              @Param("staleBefore") Instant staleBefore);
+
+    // Renew the lease of a running job; returns 0 once it was cancelled, finished or taken over
+    @Modifying
+    @Query("UPDATE BulkJobEntity j SET j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.leaseToken = :token AND j.status = com.rapidphotoflow.domain.JobStatus.RUNNING")
+    int heartbeat(@Param("id") UUID id, @Param("token") UUID token, @Param("now") Instant now);
+
+    // Leaves status alone, so a concurrent cancellation is never overwritten; returns 0 if
+    // another runner has taken the job over
+    @Modifying
+    @Query("UPDATE BulkJobEntity j SET j.processedItems = j.processedItems + :processed, " +
+            "j.succeededItems = j.succeededItems + :succeeded, j.failedItems = j.failedItems + :failed, " +
+            "j.rowsWritten = j.rowsWritten + :rows, j.resumeCursor = :cursor, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.leaseToken = :token")
+    int checkpoint(@Param("id") UUID id, @Param("token") UUID token, @Param("processed") int processed,
+                   @Param("succeeded") int succeeded, @Param("failed") int failed, @Param("rows") long rows,
+                   @Param("cursor") String cursor, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE BulkJobEntity j SET j.status = :status, j.errorMessage = :errorMessage, " +
+            "j.updatedAt = :now, j.finishedAt = :now " +
+            "WHERE j.id = :id AND j.leaseToken = :token AND j.status = com.rapidphotoflow.domain.JobStatus.RUNNING")
+    int finish(@Param("id") UUID id, @Param("token") UUID token, @Param("status") JobStatus status,
+               @Param("errorMessage") String errorMessage, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE BulkJobEntity j SET j.status = com.rapidphotoflow.domain.JobStatus.CANCELLED, " +
+            "j.updatedAt = :now, j.finishedAt = :now " +
+            "WHERE j.id = :id AND j.status IN (com.rapidphotoflow.domain.JobStatus.QUEUED, " +
+            "com.rapidphotoflow.domain.JobStatus.RUNNING)")
+    int cancel(@Param("id") UUID id, @Param("now") Instant now);
+
+    // Hand a running job back to the queue, e.g. on shutdown
+    @Modifying
+    @Query("UPDATE BulkJobEntity j SET j.status = com.rapidphotoflow.domain.JobStatus.QUEUED, j.updatedAt = :now, " +
+            "j.leaseToken = NULL " +
+            "WHERE j.id = :id AND j.leaseToken = :token AND j.status = com.rapidphotoflow.domain.JobStatus.RUNNING")
+    int requeue(@Param("id") UUID id, @Param("token") UUID token, @Param("now") Instant now);
+
+    @Query("SELECT j.id FROM BulkJobEntity j WHERE j.finishedAt < :cutoff")
+    List<UUID> findIdsFinishedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,19 @@
+package com.rapidphotoflow.repository;
+
+import com.rapidphotoflow.entity.EventArchiveEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EventArchiveRepository extends JpaRepository<EventArchiveEntity, UUID> {
+
+    @Query("SELECT a FROM EventArchiveEntity a WHERE a.rangeEnd > :from AND a.rangeStart < :to " +
+            "ORDER BY a.rangeEnd DESC")
+    List<EventArchiveEntity> findOverlapping(@Param("from") Instant from, @Param("to") Instant to);
+}
@@ -2,20 +2,47 @@ package com.rapidphotoflow.repository;
 
 import com.rapidphotoflow.domain.EventType;
 import com.rapidphotoflow.entity.EventLogEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface EventLogRepository extends JpaRepository<EventLogEntity, UUID> {
 
-    List<EventLogEntity> findByPhotoIdOrderByTimestampDesc(UUID photoId);
+    // Keyset pages, newest first: rows strictly before (beforeTimestamp, beforeId).
+    // The plain timestamp bound is redundant but lets the composite indexes range-scan.
 
-    List<EventLogEntity> findAllByOrderByTimestampDesc();
+    @Query("SELECT e FROM EventLogEntity e " +
+            "WHERE e.timestamp <= :beforeTimestamp " +
+            "AND (e.timestamp < :beforeTimestamp OR e.id < :beforeId) " +
+            "ORDER BY e.timestamp DESC, e.id DESC")
+    List<EventLogEntity> findPage(@Param("beforeTimestamp") Instant beforeTimestamp,
+                                  @Param("beforeId") UUID beforeId, Pageable pageable);
 
-    List<EventLogEntity> findByEventTypeOrderByTimestampDesc(EventType eventType);
+    @Query("SELECT e FROM EventLogEntity e " +
+            "WHERE e.photoId = :photoId AND e.timestamp <= :beforeTimestamp " +
+            "AND (e.timestamp < :beforeTimestamp OR e.id < :beforeId) " +
+            "ORDER BY e.timestamp DESC, e.id DESC")
+    List<EventLogEntity> findPageByPhotoId(@Param("photoId") UUID photoId,
+                                           @Param("beforeTimestamp") Instant beforeTimestamp,
+                                           @Param("beforeId") UUID beforeId, Pageable pageable);
+
+    @Query("SELECT e FROM EventLogEntity e " +
+            "WHERE e.eventType = :eventType AND e.timestamp <= :beforeTimestamp " +
+            "AND (e.timestamp < :beforeTimestamp OR e.id < :beforeId) " +
+            "ORDER BY e.timestamp DESC, e.id DESC")
+    List<EventLogEntity> findPageByEventType(@Param("eventType") EventType eventType,
+                                             @Param("beforeTimestamp") Instant beforeTimestamp,
+                                             @Param("beforeId") UUID beforeId, Pageable pageable);
+
+    List<EventLogEntity> findByPhotoIdInAndEventType(Collection<UUID> photoIds, EventType eventType);
 
     void deleteByPhotoId(UUID photoId);
 }
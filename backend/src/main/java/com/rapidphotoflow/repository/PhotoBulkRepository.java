@@ -0,0 +1,101 @@
+package com.rapidphotoflow.repository;
+
+import com.rapidphotoflow.domain.PhotoStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Set-based writes over many photos, each a single statement with array parameters.
+ * Runs through JDBC in the caller's transaction, bypassing the persistence context,
+ * so callers must not hold managed entities for the affected rows.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PhotoBulkRepository {
+
+    /**
+     * A row changed by a bulk transition, with the status it had before.
+     */
+    public record TransitionedPhoto(UUID id, PhotoStatus previousStatus, String filename, UUID uploadedByUserId) {
+    }
+
+    // The subquery locks the rows and captures their previous status for RETURNING
+    private static final String TRANSITION_SQL = """
+            UPDATE photos p
+            SET status = ?,
+                failure_reason = CASE WHEN ? THEN NULL ELSE p.failure_reason END,
+                updated_at = ?
+            FROM (SELECT id, status FROM photos
+                  WHERE id = ANY(?) AND status = ANY(?)
+                  FOR UPDATE) previous
+            WHERE p.id = previous.id
+            RETURNING p.id, previous.status, p.filename, p.uploaded_by_user_id
+            """;
+
+    /**
+     * A row removed by a bulk delete.
+     */
+    public record DeletedPhoto(UUID id, PhotoStatus status, String filename, UUID uploadedByUserId, String contentHash) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Move every listed photo whose current status is one of {@code from} to {@code to}.
+     * Photos in any other status, or that do not exist, are left untouched and not returned.
+     */
+    public List<TransitionedPhoto> transition(Collection<UUID> ids, Collection<PhotoStatus> from, PhotoStatus to,
+                                              boolean clearFailureReason, Instant updatedAt) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(TRANSITION_SQL);
+            statement.setString(1, to.name());
+            statement.setBoolean(2, clearFailureReason);
+            statement.setTimestamp(3, Timestamp.from(updatedAt));
+            statement.setArray(4, connection.createArrayOf("uuid", ids.toArray()));
+            statement.setArray(5, connection.createArrayOf("varchar",
+                    from.stream().map(PhotoStatus::name).toArray()));
+            return statement;
+        }, (rs, rowNum) -> new TransitionedPhoto(
+                rs.getObject(1, UUID.class),
+                PhotoStatus.valueOf(rs.getString(2)),
+                rs.getString(3),
+                rs.getObject(4, UUID.class)));
+    }
+
+    /**
+     * Delete the tags of the listed photos, returning the removed (photoId, tag) pairs.
+     */
+    public List<Object[]> deleteTags(Collection<UUID> ids) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM photo_tags WHERE photo_id = ANY(?) RETURNING photo_id, tag");
+            statement.setArray(1, connection.createArrayOf("uuid", ids.toArray()));
+            return statement;
+        }, (rs, rowNum) -> new Object[]{rs.getObject(1, UUID.class), rs.getString(2)});
+    }
+
+    /**
+     * Delete the listed photos, returning the rows that existed. Tags must be deleted first.
+     */
+    public List<DeletedPhoto> delete(Collection<UUID> ids) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM photos WHERE id = ANY(?) RETURNING id, status, filename, uploaded_by_user_id, content_hash");
+            statement.setArray(1, connection.createArrayOf("uuid", ids.toArray()));
+            return statement;
+        }, (rs, rowNum) -> new DeletedPhoto(
+                rs.getObject(1, UUID.class),
+                PhotoStatus.valueOf(rs.getString(2)),
+                rs.getString(3),
+                rs.getObject(4, UUID.class),
+                rs.getString(5)));
+    }
+}
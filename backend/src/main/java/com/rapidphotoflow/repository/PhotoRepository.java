@@ -2,20 +2,202 @@ package com.rapidphotoflow.repository;
 
 import com.rapidphotoflow.domain.PhotoStatus;
 import com.rapidphotoflow.entity.PhotoEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface PhotoRepository extends JpaRepository<PhotoEntity, UUID> {
 
-    List<PhotoEntity> findByStatusOrderByUploadedAtDesc(PhotoStatus status);
+    @EntityGraph(attributePaths = "tags")
+    Optional<PhotoEntity> findWithTagsById(UUID id);
 
-    List<PhotoEntity> findByStatusInOrderByUploadedAtDesc(List<PhotoStatus> statuses);
+    long countByStatus(PhotoStatus status);
 
-    List<PhotoEntity> findAllByOrderByUploadedAtDesc();
+    @Query("SELECT p.status AS status, COUNT(p) AS count FROM PhotoEntity p GROUP BY p.status")
+    List<StatusCount> countGroupedByStatus();
 
-    long countByStatus(PhotoStatus status);
+    @Query("SELECT p.id FROM PhotoEntity p")
+    List<UUID> findAllIds();
+
+    @Query("SELECT p.id FROM PhotoEntity p WHERE p.status = :status ORDER BY p.uploadedAt DESC")
+    List<UUID> findIdsByStatus(@Param("status") PhotoStatus status, Pageable pageable);
+
+    // Status and tag are optional filters; null matches everything
+    @Query("SELECT new com.rapidphotoflow.repository.PhotoSummary(p.id, p.filename, p.mimeType, p.sizeBytes, " +
+            "p.status, p.failureReason, p.uploadedAt, p.updatedAt, p.uploadedByUserId) " +
+            "FROM PhotoEntity p " +
+            "WHERE (:status IS NULL OR p.status = :status) AND (:tag IS NULL OR :tag MEMBER OF p.tags) " +
+            "ORDER BY p.uploadedAt DESC")
+    List<PhotoSummary> findSummaries(@Param("status") PhotoStatus status, @Param("tag") String tag);
+
+    @Query("SELECT new com.rapidphotoflow.repository.PhotoSummary(p.id, p.filename, p.mimeType, p.sizeBytes, " +
+            "p.status, p.failureReason, p.uploadedAt, p.updatedAt, p.uploadedByUserId) " +
+            "FROM PhotoEntity p WHERE p.id IN :ids")
+    List<PhotoSummary> findSummariesByIds(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT new com.rapidphotoflow.repository.ProcessingCandidate(p.id, p.filename, p.mimeType, " +
+            "p.sizeBytes, p.status, p.uploadedByUserId) FROM PhotoEntity p WHERE p.id = :id")
+    Optional<ProcessingCandidate> findProcessingCandidate(@Param("id") UUID id);
+
+    // Move a photo from one status to another; returns 0 if it is no longer in the expected one
+    @Modifying
+    @Query("UPDATE PhotoEntity p SET p.status = :to, p.failureReason = :failureReason, p.updatedAt = :now " +
+            "WHERE p.id = :id AND p.status = :from")
+    int transition(@Param("id") UUID id, @Param("from") PhotoStatus from, @Param("to") PhotoStatus to,
+                   @Param("failureReason") String failureReason, @Param("now") Instant now);
+
+    @Query("SELECT p.id, p.filename FROM PhotoEntity p WHERE p.id IN :ids")
+    List<Object[]> findFilenamesByIds(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT DISTINCT p.contentHash FROM PhotoEntity p WHERE p.contentHash IN :hashes")
+    List<String> findContentHashesIn(@Param("hashes") Collection<String> hashes);
+
+    // Rows last written by a transaction at or after the given ID
+    @Query("SELECT new com.rapidphotoflow.repository.PhotoSummary(p.id, p.filename, p.mimeType, p.sizeBytes, " +
+            "p.status, p.failureReason, p.uploadedAt, p.updatedAt, p.uploadedByUserId) " +
+            "FROM PhotoEntity p WHERE p.changeXid >= :xid ORDER BY p.uploadedAt DESC")
+    List<PhotoSummary> findSummariesChangedSince(@Param("xid") long xid);
+
+    @Query("SELECT p.id, t FROM PhotoEntity p JOIN p.tags t WHERE p.changeXid >= :xid")
+    List<Object[]> findSummaryTagsChangedSince(@Param("xid") long xid);
+
+    // Oldest transaction still running as of this statement: every write it cannot see
+    // yet, committed or not, comes from a transaction with this ID or a later one
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)",
+            nativeQuery = true)
+    long findSnapshotXmin();
+
+    // The snapshot xmin plus a digest of every photo write and delete at or after it, read
+    // in one statement. Any commit changes either the xmin or the rows the digest covers
+    @Query(value = """
+            SELECT s.xmin || '-' || md5(
+                COALESCE((SELECT string_agg(CAST(p.id AS text) || '/' || p.change_xid, ',' ORDER BY p.id)
+                          FROM photos p WHERE p.change_xid >= s.xmin), '')
+                || '|' ||
+                COALESCE((SELECT string_agg(CAST(t.photo_id AS text) || '/' || t.change_xid, ',' ORDER BY t.photo_id)
+                          FROM photo_tombstones t WHERE t.change_xid >= s.xmin), ''))
+            FROM (SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint) AS xmin) s
+            """, nativeQuery = true)
+    String findChangeVersion();
+
+    @Query("SELECT p.id, t FROM PhotoEntity p JOIN p.tags t WHERE p.id IN :ids")
+    List<Object[]> findTagPairsByPhotoIds(@Param("ids") Collection<UUID> ids);
+
+    // Tags for the same rows as findSummaries, as (photoId, tag) pairs
+    @Query("SELECT p.id, t FROM PhotoEntity p JOIN p.tags t " +
+            "WHERE (:status IS NULL OR p.status = :status) AND (:tag IS NULL OR :tag MEMBER OF p.tags)")
+    List<Object[]> findSummaryTags(@Param("status") PhotoStatus status, @Param("tag") String tag);
+
+    @Query("SELECT t, p.status, p.uploadedByUserId, COUNT(p) FROM PhotoEntity p JOIN p.tags t " +
+            "GROUP BY t, p.status, p.uploadedByUserId")
+    List<Object[]> countTagsGroupedByStatusAndUploader();
+
+    @Query(value = "SELECT t.tag FROM photo_tags t WHERE t.photo_id = :photoId", nativeQuery = true)
+    List<String> findTagsByPhotoId(@Param("photoId") UUID photoId);
+
+    @Query(value = "SELECT t.tag, COUNT(*) FROM photo_tags t GROUP BY t.tag", nativeQuery = true)
+    List<Object[]> countPhotosGroupedByTag();
+
+    // Ranked by exact tag match, tag prefix match, filename prefix match, then trigram similarity.
+    // The pattern must already have LIKE wildcards escaped.
+    @Query(value = """
+            SELECT p.id FROM photos p
+            WHERE p.filename ILIKE '%' || :pattern || '%'
+               OR p.id IN (SELECT t.photo_id FROM photo_tags t WHERE t.tag LIKE :pattern || '%')
+            ORDER BY
+                (CASE WHEN EXISTS (SELECT 1 FROM photo_tags t WHERE t.photo_id = p.id AND t.tag = :term) THEN 3 ELSE 0 END)
+              + (CASE WHEN EXISTS (SELECT 1 FROM photo_tags t WHERE t.photo_id = p.id AND t.tag LIKE :pattern || '%') THEN 1 ELSE 0 END)
+              + (CASE WHEN p.filename ILIKE :pattern || '%' THEN 1 ELSE 0 END)
+              + similarity(p.filename, :term) DESC,
+                p.uploaded_at DESC
+            LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<UUID> searchIds(@Param("term") String term, @Param("pattern") String pattern,
+                         @Param("limit") int limit, @Param("offset") long offset);
+
+    // Same as searchIds without the trigram term, for databases where pg_trgm could not be installed
+    @Query(value = """
+            SELECT p.id FROM photos p
+            WHERE p.filename ILIKE '%' || :pattern || '%'
+               OR p.id IN (SELECT t.photo_id FROM photo_tags t WHERE t.tag LIKE :pattern || '%')
+            ORDER BY
+                (CASE WHEN EXISTS (SELECT 1 FROM photo_tags t WHERE t.photo_id = p.id AND t.tag = :term) THEN 3 ELSE 0 END)
+              + (CASE WHEN EXISTS (SELECT 1 FROM photo_tags t WHERE t.photo_id = p.id AND t.tag LIKE :pattern || '%') THEN 1 ELSE 0 END)
+              + (CASE WHEN p.filename ILIKE :pattern || '%' THEN 1 ELSE 0 END) DESC,
+                p.uploaded_at DESC
+            LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<UUID> searchIdsWithoutSimilarity(@Param("term") String term, @Param("pattern") String pattern,
+                                          @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm')", nativeQuery = true)
+    boolean isTrigramAvailable();
+
+    @Query(value = """
+            SELECT COUNT(*) FROM photos p
+            WHERE p.filename ILIKE '%' || :pattern || '%'
+               OR p.id IN (SELECT t.photo_id FROM photo_tags t WHERE t.tag LIKE :pattern || '%')
+            """, nativeQuery = true)
+    long countSearch(@Param("pattern") String pattern);
+
+    // Photos of the next batch of shared content hashes after the cursor, as (id, contentHash,
+    // keptStatus, loser) ordered by hash. Within each hash the photo with the highest status
+    // priority wins, then the earliest upload; every other photo is a loser. The photos are
+    // locked and ranked on their locked state, so the winner cannot change or vanish before
+    // the losers are deleted in the same transaction.
+    @Query(value = """
+            WITH duplicate_hashes AS (
+                SELECT p.content_hash FROM photos p
+                WHERE p.content_hash IS NOT NULL AND p.content_hash > :after
+                GROUP BY p.content_hash
+                HAVING COUNT(*) > 1
+                ORDER BY p.content_hash
+                LIMIT :limit
+            ), locked AS (
+                SELECT p.id, p.content_hash, p.status, p.uploaded_at FROM photos p
+                WHERE p.content_hash IN (SELECT d.content_hash FROM duplicate_hashes d)
+                FOR UPDATE OF p
+            ), ranked AS (
+                SELECT l.id, l.content_hash,
+                       ROW_NUMBER() OVER w AS position,
+                       FIRST_VALUE(l.status) OVER w AS kept_status
+                FROM locked l
+                WINDOW w AS (PARTITION BY l.content_hash ORDER BY
+                    CASE l.status
+                        WHEN 'APPROVED' THEN 6 WHEN 'PROCESSED' THEN 5 WHEN 'PROCESSING' THEN 4
+                        WHEN 'PENDING' THEN 3 WHEN 'FAILED' THEN 2 ELSE 1
+                    END DESC, l.uploaded_at, l.id)
+            )
+            SELECT r.id, r.content_hash, r.kept_status, r.position > 1 AS loser FROM ranked r
+            ORDER BY r.content_hash
+            """, nativeQuery = true)
+    List<Object[]> lockDuplicateGroups(@Param("after") String after, @Param("limit") int limit);
+
+    // Number of losers lockDuplicateGroups would return across all hashes
+    @Query(value = """
+            SELECT CAST(COALESCE(SUM(d.copies - 1), 0) AS bigint) FROM (
+                SELECT COUNT(*) AS copies FROM photos p
+                WHERE p.content_hash IS NOT NULL
+                GROUP BY p.content_hash
+                HAVING COUNT(*) > 1
+            ) d
+            """, nativeQuery = true)
+    long countDuplicates();
+
+    interface StatusCount {
+        PhotoStatus getStatus();
+
+        long getCount();
+    }
 }
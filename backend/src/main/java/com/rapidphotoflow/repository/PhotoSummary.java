@@ -0,0 +1,22 @@
+package com.rapidphotoflow.repository;
+
+import com.rapidphotoflow.domain.PhotoStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Read-only projection of the photo columns needed by list endpoints.
+ * Selected with a JPQL constructor expression, so rows are never managed entities.
+ */
+public record PhotoSummary(
+        UUID id,
+        String filename,
+        String mimeType,
+        long sizeBytes,
+        PhotoStatus status,
+        String failureReason,
+        Instant uploadedAt,
+        Instant updatedAt,
+        UUID uploadedByUserId) {
+}
@@ -0,0 +1,23 @@
+package com.rapidphotoflow.repository;
+
+import com.rapidphotoflow.entity.PhotoTombstoneEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PhotoTombstoneRepository extends JpaRepository<PhotoTombstoneEntity, UUID> {
+
+    @Query("SELECT t.photoId FROM PhotoTombstoneEntity t WHERE t.changeXid >= :xid")
+    List<UUID> findPhotoIdsDeletedSince(@Param("xid") long xid);
+
+    @Modifying
+    @Query("DELETE FROM PhotoTombstoneEntity t WHERE t.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
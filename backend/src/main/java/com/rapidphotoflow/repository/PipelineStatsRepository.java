@@ -0,0 +1,312 @@
+package com.rapidphotoflow.repository;
+
+import com.rapidphotoflow.domain.EventType;
+import com.rapidphotoflow.domain.PipelineStage;
+import com.rapidphotoflow.entity.PhotoPipelineStateEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads and incremental writes of the pipeline analytics tables: per-photo stage state and
+ * per-minute latency histograms and event counts. Writes add to existing buckets, so nodes
+ * flushing concurrently never overwrite each other; keys are written in a fixed order so
+ * they cannot deadlock either.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PipelineStatsRepository {
+
+    // Stands in for "no uploader" in bucket keys, which cannot be null
+    public static final UUID NO_UPLOADER = new UUID(0, 0);
+
+    public record LatencyKey(Instant bucketStart, PipelineStage stage, UUID uploaderId, int bin) {
+    }
+
+    public record EventKey(Instant bucketStart, EventType eventType, UUID uploaderId, String reason) {
+    }
+
+    public record LatencyRow(PipelineStage stage, int bin, long count, long sumMs) {
+    }
+
+    public record EventRow(Instant bucketStart, EventType eventType, String reason, long count) {
+    }
+
+    // Photos without state yet come back with only their uploader filled in
+    private static final String FIND_STATES_SQL = """
+            SELECT ids.id, COALESCE(s.uploader_id, p.uploaded_by_user_id), s.created_at, s.queued_at,
+                   s.processing_started_at, s.processing_finished_at, s.reviewed_at, s.updated_at
+            FROM unnest(?) AS ids(id)
+            LEFT JOIN photo_pipeline_state s ON s.photo_id = ids.id
+            LEFT JOIN photos p ON p.id = ids.id AND s.photo_id IS NULL
+            """;
+
+    // Later timestamps win, so a node with an older view of the photo cannot roll it back
+    private static final String SAVE_STATE_SQL = """
+            INSERT INTO photo_pipeline_state (photo_id, uploader_id, created_at, queued_at,
+                processing_started_at, processing_finished_at, reviewed_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (photo_id) DO UPDATE SET
+                uploader_id = COALESCE(EXCLUDED.uploader_id, photo_pipeline_state.uploader_id),
+                created_at = COALESCE(photo_pipeline_state.created_at, EXCLUDED.created_at),
+                queued_at = GREATEST(photo_pipeline_state.queued_at, EXCLUDED.queued_at),
+                processing_started_at = GREATEST(photo_pipeline_state.processing_started_at, EXCLUDED.processing_started_at),
+                processing_finished_at = GREATEST(photo_pipeline_state.processing_finished_at, EXCLUDED.processing_finished_at),
+                reviewed_at = GREATEST(photo_pipeline_state.reviewed_at, EXCLUDED.reviewed_at),
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final String ADD_LATENCY_SQL = """
+            INSERT INTO pipeline_latency_buckets (bucket_start, stage, uploader_id, bin, count, sum_ms)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (bucket_start, stage, uploader_id, bin) DO UPDATE SET
+                count = pipeline_latency_buckets.count + EXCLUDED.count,
+                sum_ms = pipeline_latency_buckets.sum_ms + EXCLUDED.sum_ms
+            """;
+
+    private static final String ADD_EVENTS_SQL = """
+            INSERT INTO pipeline_event_buckets (bucket_start, event_type, uploader_id, reason, count)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (bucket_start, event_type, uploader_id, reason) DO UPDATE SET
+                count = pipeline_event_buckets.count + EXCLUDED.count
+            """;
+
+    private static final String PIPELINE_EVENT_TYPES =
+            "('PHOTO_CREATED', 'RETRY_REQUESTED', 'PROCESSING_STARTED', 'PROCESSING_COMPLETED', "
+                    + "'PROCESSING_FAILED', 'APPROVED', 'REJECTED')";
+
+    // Replays the event log with the same rules as the incremental path: a stage's latency
+    // counts when the photo entered it after it last entered the following stage
+    private static final String REBUILD_LATENCIES_SQL = """
+            WITH marked AS (
+                SELECT e.photo_id, e.event_type, e."timestamp" AS ts,
+                    min(CASE WHEN e.event_type = 'PHOTO_CREATED' THEN e."timestamp" END) OVER w AS created_at,
+                    max(CASE WHEN e.event_type IN ('PHOTO_CREATED', 'RETRY_REQUESTED') THEN e."timestamp" END) OVER w AS queued_at,
+                    max(CASE WHEN e.event_type = 'PROCESSING_STARTED' THEN e."timestamp" END) OVER w AS started_at,
+                    max(CASE WHEN e.event_type IN ('PROCESSING_COMPLETED', 'PROCESSING_FAILED') THEN e."timestamp" END) OVER w AS finished_at,
+                    max(CASE WHEN e.event_type IN ('APPROVED', 'REJECTED') THEN e."timestamp" END) OVER w AS reviewed_at
+                FROM event_logs e
+                WHERE e.event_type IN %1$s AND e."timestamp" >= ?
+                WINDOW w AS (PARTITION BY e.photo_id ORDER BY e."timestamp", e.id
+                             ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING)
+            ), latencies AS (
+                SELECT photo_id, ts, 'QUEUED' AS stage, ts - queued_at AS latency FROM marked
+                WHERE event_type = 'PROCESSING_STARTED' AND queued_at IS NOT NULL
+                  AND (started_at IS NULL OR started_at < queued_at)
+                UNION ALL
+                SELECT photo_id, ts, 'PROCESSING', ts - started_at FROM marked
+                WHERE event_type IN ('PROCESSING_COMPLETED', 'PROCESSING_FAILED') AND started_at IS NOT NULL
+                  AND (finished_at IS NULL OR finished_at < started_at)
+                UNION ALL
+                SELECT photo_id, ts, 'REVIEW', ts - finished_at FROM marked
+                WHERE event_type IN ('APPROVED', 'REJECTED') AND finished_at IS NOT NULL
+                  AND (reviewed_at IS NULL OR reviewed_at < finished_at)
+                UNION ALL
+                SELECT photo_id, ts, 'END_TO_END', ts - created_at FROM marked
+                WHERE event_type IN ('APPROVED', 'REJECTED') AND finished_at IS NOT NULL AND created_at IS NOT NULL
+                  AND (reviewed_at IS NULL OR reviewed_at < finished_at)
+            ), measured AS (
+                SELECT photo_id, ts, stage, GREATEST(0, (extract(epoch FROM latency) * 1000)::bigint) AS ms
+                FROM latencies
+            )
+            INSERT INTO pipeline_latency_buckets (bucket_start, stage, uploader_id, bin, count, sum_ms)
+            SELECT date_trunc('minute', m.ts), m.stage, COALESCE(p.uploaded_by_user_id, '%2$s'::uuid),
+                   floor(%3$d * log(2.0, (m.ms + 1)::numeric))::int, count(*), sum(m.ms)
+            FROM measured m
+            LEFT JOIN photos p ON p.id = m.photo_id
+            GROUP BY 1, 2, 3, 4
+            """;
+
+    private static final String REBUILD_EVENTS_SQL = """
+            INSERT INTO pipeline_event_buckets (bucket_start, event_type, uploader_id, reason, count)
+            SELECT date_trunc('minute', e."timestamp"), e.event_type, COALESCE(p.uploaded_by_user_id, '%2$s'::uuid),
+                   CASE WHEN e.event_type = 'PROCESSING_FAILED' THEN COALESCE(e.params ->> 'reason',
+                       substring(e.message from '^Processing failed: .* - (.*)$'), '') ELSE '' END,
+                   count(*)
+            FROM event_logs e
+            LEFT JOIN photos p ON p.id = e.photo_id
+            WHERE e.event_type IN %1$s AND e."timestamp" >= ?
+            GROUP BY 1, 2, 3, 4
+            """;
+
+    private static final String REBUILD_STATES_SQL = """
+            INSERT INTO photo_pipeline_state (photo_id, uploader_id, created_at, queued_at,
+                processing_started_at, processing_finished_at, reviewed_at, updated_at)
+            SELECT s.photo_id, p.uploaded_by_user_id, s.created_at, s.queued_at,
+                   s.started_at, s.finished_at, s.reviewed_at, now()
+            FROM (
+                SELECT e.photo_id,
+                    min(CASE WHEN e.event_type = 'PHOTO_CREATED' THEN e."timestamp" END) AS created_at,
+                    max(CASE WHEN e.event_type IN ('PHOTO_CREATED', 'RETRY_REQUESTED') THEN e."timestamp" END) AS queued_at,
+                    max(CASE WHEN e.event_type = 'PROCESSING_STARTED' THEN e."timestamp" END) AS started_at,
+                    max(CASE WHEN e.event_type IN ('PROCESSING_COMPLETED', 'PROCESSING_FAILED') THEN e."timestamp" END) AS finished_at,
+                    max(CASE WHEN e.event_type IN ('APPROVED', 'REJECTED') THEN e."timestamp" END) AS reviewed_at
+                FROM event_logs e
+                WHERE e.event_type IN %1$s AND e."timestamp" >= ?
+                GROUP BY e.photo_id
+            ) s
+            LEFT JOIN photos p ON p.id = s.photo_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Map<UUID, PhotoPipelineStateEntity> findStates(Collection<UUID> photoIds) {
+        Map<UUID, PhotoPipelineStateEntity> states = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_STATES_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", photoIds.toArray()));
+            return statement;
+        }, rs -> {
+            UUID photoId = rs.getObject(1, UUID.class);
+            states.put(photoId, PhotoPipelineStateEntity.builder()
+                    .photoId(photoId)
+                    .uploaderId(rs.getObject(2, UUID.class))
+                    .createdAt(toInstant(rs.getTimestamp(3)))
+                    .queuedAt(toInstant(rs.getTimestamp(4)))
+                    .processingStartedAt(toInstant(rs.getTimestamp(5)))
+                    .processingFinishedAt(toInstant(rs.getTimestamp(6)))
+                    .reviewedAt(toInstant(rs.getTimestamp(7)))
+                    .updatedAt(toInstant(rs.getTimestamp(8)))
+                    .build());
+        });
+        return states;
+    }
+
+    public void saveStates(Collection<PhotoPipelineStateEntity> states) {
+        List<PhotoPipelineStateEntity> ordered = new ArrayList<>(states);
+        ordered.sort(Comparator.comparing(PhotoPipelineStateEntity::getPhotoId));
+        jdbcTemplate.batchUpdate(SAVE_STATE_SQL, ordered, ordered.size(), (statement, state) -> {
+            statement.setObject(1, state.getPhotoId());
+            statement.setObject(2, state.getUploaderId());
+            statement.setTimestamp(3, toTimestamp(state.getCreatedAt()));
+            statement.setTimestamp(4, toTimestamp(state.getQueuedAt()));
+            statement.setTimestamp(5, toTimestamp(state.getProcessingStartedAt()));
+            statement.setTimestamp(6, toTimestamp(state.getProcessingFinishedAt()));
+            statement.setTimestamp(7, toTimestamp(state.getReviewedAt()));
+            statement.setTimestamp(8, toTimestamp(state.getUpdatedAt()));
+        });
+    }
+
+    /**
+     * Add (count, sum of milliseconds) pairs to their latency buckets.
+     */
+    public void addLatencies(Map<LatencyKey, long[]> latencies) {
+        List<Map.Entry<LatencyKey, long[]>> ordered = new ArrayList<>(latencies.entrySet());
+        ordered.sort(Map.Entry.comparingByKey(Comparator.comparing(LatencyKey::bucketStart)
+                .thenComparing(LatencyKey::stage)
+                .thenComparing(LatencyKey::uploaderId)
+                .thenComparingInt(LatencyKey::bin)));
+        jdbcTemplate.batchUpdate(ADD_LATENCY_SQL, ordered, ordered.size(), (statement, entry) -> {
+            LatencyKey key = entry.getKey();
+            statement.setTimestamp(1, Timestamp.from(key.bucketStart()));
+            statement.setString(2, key.stage().name());
+            statement.setObject(3, key.uploaderId());
+            statement.setInt(4, key.bin());
+            statement.setLong(5, entry.getValue()[0]);
+            statement.setLong(6, entry.getValue()[1]);
+        });
+    }
+
+    public void addEventCounts(Map<EventKey, Long> counts) {
+        List<Map.Entry<EventKey, Long>> ordered = new ArrayList<>(counts.entrySet());
+        ordered.sort(Map.Entry.comparingByKey(Comparator.comparing(EventKey::bucketStart)
+                .thenComparing(EventKey::eventType)
+                .thenComparing(EventKey::uploaderId)
+                .thenComparing(EventKey::reason)));
+        jdbcTemplate.batchUpdate(ADD_EVENTS_SQL, ordered, ordered.size(), (statement, entry) -> {
+            EventKey key = entry.getKey();
+            statement.setTimestamp(1, Timestamp.from(key.bucketStart()));
+            statement.setString(2, key.eventType().name());
+            statement.setObject(3, key.uploaderId());
+            statement.setString(4, key.reason());
+            statement.setLong(5, entry.getValue());
+        });
+    }
+
+    /**
+     * Latency histogram bins per stage over [from, to), optionally for one uploader.
+     */
+    public List<LatencyRow> findLatencies(Instant from, Instant to, UUID uploaderId) {
+        List<Object> args = new ArrayList<>(List.of(Timestamp.from(from), Timestamp.from(to)));
+        String sql = "SELECT stage, bin, SUM(count), SUM(sum_ms) FROM pipeline_latency_buckets "
+                + "WHERE bucket_start >= ? AND bucket_start < ?" + uploaderFilter(uploaderId, args)
+                + " GROUP BY stage, bin";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new LatencyRow(
+                PipelineStage.valueOf(rs.getString(1)),
+                rs.getInt(2),
+                rs.getLong(3),
+                rs.getLong(4)), args.toArray());
+    }
+
+    /**
+     * Event counts over [from, to) in steps of the given length, aligned to the epoch.
+     */
+    public List<EventRow> findEventCounts(Instant from, Instant to, UUID uploaderId, long stepSeconds) {
+        List<Object> args = new ArrayList<>(List.of(stepSeconds, stepSeconds, Timestamp.from(from), Timestamp.from(to)));
+        String sql = "SELECT to_timestamp(floor(extract(epoch FROM bucket_start) / ?) * ?) AS step_start, "
+                + "event_type, reason, SUM(count) FROM pipeline_event_buckets "
+                + "WHERE bucket_start >= ? AND bucket_start < ?" + uploaderFilter(uploaderId, args)
+                + " GROUP BY 1, 2, 3 ORDER BY 1";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new EventRow(
+                rs.getTimestamp(1).toInstant(),
+                EventType.valueOf(rs.getString(2)),
+                rs.getString(3),
+                rs.getLong(4)), args.toArray());
+    }
+
+    public boolean hasState() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM photo_pipeline_state)", Boolean.class));
+    }
+
+    /**
+     * Replace all analytics with a recomputation from the event log since the given instant.
+     * Must run in a transaction.
+     */
+    public void rebuild(Instant since, int binsPerDoubling) {
+        Timestamp start = Timestamp.from(since);
+        jdbcTemplate.update("DELETE FROM pipeline_latency_buckets");
+        jdbcTemplate.update("DELETE FROM pipeline_event_buckets");
+        jdbcTemplate.update("DELETE FROM photo_pipeline_state");
+        jdbcTemplate.update(REBUILD_LATENCIES_SQL.formatted(PIPELINE_EVENT_TYPES, NO_UPLOADER, binsPerDoubling), start);
+        jdbcTemplate.update(REBUILD_EVENTS_SQL.formatted(PIPELINE_EVENT_TYPES, NO_UPLOADER), start);
+        jdbcTemplate.update(REBUILD_STATES_SQL.formatted(PIPELINE_EVENT_TYPES), start);
+    }
+
+    /**
+     * Remove buckets that start before the cutoff and state not touched since it.
+     */
+    public int deleteBefore(Instant cutoff) {
+        Timestamp before = Timestamp.from(cutoff);
+        return jdbcTemplate.update("DELETE FROM pipeline_latency_buckets WHERE bucket_start < ?", before)
+                + jdbcTemplate.update("DELETE FROM pipeline_event_buckets WHERE bucket_start < ?", before)
+                + jdbcTemplate.update("DELETE FROM photo_pipeline_state WHERE updated_at < ?", before);
+    }
+
+    private static String uploaderFilter(UUID uploaderId, List<Object> args) {
+        if (uploaderId == null) {
+            return "";
+        }
+        args.add(uploaderId);
+        return " AND uploader_id = ?";
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    private static Timestamp toTimestamp(Instant instant) {
+        return instant != null ? Timestamp.from(instant) : null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.rapidphotoflow.repository;
+
+import com.rapidphotoflow.domain.PhotoStatus;
+
+import java.util.UUID;
+
+/**
+ * Read-only projection of the photo columns the processor validates and reports on.
+ * Selected with a JPQL constructor expression, so rows are never managed entities.
+ */
+public record ProcessingCandidate(
+        UUID id,
+        String filename,
+        String mimeType,
+        long sizeBytes,
+        PhotoStatus status,
+        UUID uploadedByUserId) {
+}
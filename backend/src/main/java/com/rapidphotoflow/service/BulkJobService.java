@@ -0,0 +1,545 @@
+package com.rapidphotoflow.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidphotoflow.domain.JobStatus;
+import com.rapidphotoflow.domain.JobType;
+import com.rapidphotoflow.dto.BulkActionResponse;
+import com.rapidphotoflow.dto.BulkJobDTO;
+import com.rapidphotoflow.dto.GenerateRequest;
+import com.rapidphotoflow.entity.BulkJobEntity;
+import com.rapidphotoflow.entity.BulkJobErrorEntity;
+import com.rapidphotoflow.repository.BulkJobErrorRepository;
+import com.rapidphotoflow.repository.BulkJobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs bulk operations in the background as persistent jobs.
+ * Each job is processed in chunks on a dedicated executor; every chunk commits together with
+ * the job's progress counters, so a job interrupted by a crash or shutdown resumes from its
+ * last checkpoint on whichever node claims it next. Progress is announced over the cluster
+ * notification channel and pushed to Server-Sent Events subscribers on every node.
+ * <p>
+ * A claim takes a lease on the job: a token that checkpoints, completion and requeueing must
+ * match. A dedicated thread renews the lease while the job runs, however long a chunk takes.
+ * A runner whose lease was taken over finds out at its next checkpoint or heartbeat, rolls
+ * back the chunk in flight and stops.
+ */
+@Service
+@Slf4j
+public class BulkJobService {
+
+    public static final String JOBS_CHANNEL = "bulk_jobs";
+
+    private static final Set<String> ACTIONS = Set.of("approve", "reject", "retry");
+
+    private record ChunkResult(int processed, int succeeded, Map<String, String> errors, String cursor, long rows,
+                               boolean done) {
+    }
+
+    // Thrown inside a chunk transaction to roll it back when another runner owns the job
+    private static class LeaseLostException extends RuntimeException {
+        LeaseLostException(UUID jobId) {
+            super("Lease on job " + jobId + " was taken over");
+        }
+    }
+
+    private final BulkJobRepository jobRepository;
+    private final BulkJobErrorRepository errorRepository;
+    private final PhotoService photoService;
+    private final SeedService seedService;
+    private final DatasetGenerator datasetGenerator;
+    private final ObjectMapper objectMapper;
+    private final ClusterNotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final Duration staleAfter;
+    private final long heartbeatIntervalMs;
+    private final Duration retention;
+    private final long sseTimeoutMs;
+
+    private final ExecutorService runners;
+    // Single thread keeps progress events in order per subscriber
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor();
+    private final Set<UUID> active = ConcurrentHashMap.newKeySet();
+    // Lease token of every job this node is running; removed when a renewal fails
+    private final Map<UUID, UUID> leases = new ConcurrentHashMap<>();
+    // Not the shared scheduler, so leases are renewed even while other scheduled work is slow
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor();
+    private final Map<UUID, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private volatile boolean shuttingDown;
+
+    private final Counter itemsProcessed;
+    private final Timer chunkTimer;
+
+    public BulkJobService(
+            BulkJobRepository jobRepository,
+            BulkJobErrorRepository errorRepository,
+            PhotoService photoService,
+            SeedService seedService,
+            DatasetGenerator datasetGenerator,
+            ObjectMapper objectMapper,
+            ClusterNotificationService notificationService,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${jobs.threads:2}") int threads,
+            @Value("${jobs.chunk-size:500}") int chunkSize,
+            @Value("${jobs.max-errors:1000}") int maxErrors,
+            @Value("${jobs.heartbeat-interval-ms:30000}") long heartbeatIntervalMs,
+            @Value("${jobs.stale-after-ms:300000}") long staleAfterMs,
+            @Value("${jobs.retention-hours:168}") long retentionHours,
+            @Value("${jobs.sse-timeout-ms:1800000}") long sseTimeoutMs) {
+        this.jobRepository = jobRepository;
+        this.errorRepository = errorRepository;
+        this.photoService = photoService;
+        this.seedService = seedService;
+        this.datasetGenerator = datasetGenerator;
+        this.objectMapper = objectMapper;
+        this.notificationService = notificationService;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        this.staleAfter = Duration.ofMillis(staleAfterMs);
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.retention = Duration.ofHours(retentionHours);
+        this.sseTimeoutMs = sseTimeoutMs;
+        this.runners = Executors.newFixedThreadPool(threads);
+
+        notificationService.subscribe(JOBS_CHANNEL, payload -> notifier.execute(() -> onJobChanged(payload)));
+
+        Gauge.builder("jobs.active", active, Set::size).register(meterRegistry);
+        this.itemsProcessed = Counter.builder("jobs.items.processed").register(meterRegistry);
+        this.chunkTimer = Timer.builder("jobs.chunk.duration").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        heartbeats.scheduleWithFixedDelay(this::renewLeases, heartbeatIntervalMs, heartbeatIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public BulkJobDTO submitBulkAction(String action, List<UUID> ids) {
+        if (!ACTIONS.contains(action)) {
+            throw new IllegalArgumentException("Invalid action: " + action);
+        }
+        UUID[] itemIds = ids.stream().distinct().toArray(UUID[]::new);
+        return submit(JobType.BULK_ACTION, action, itemIds, itemIds.length, null);
+    }
+
+    public BulkJobDTO submitBulkDelete(List<UUID> ids) {
+        UUID[] itemIds = ids.stream().distinct().toArray(UUID[]::new);
+        return submit(JobType.BULK_DELETE, null, itemIds, itemIds.length, null);
+    }
+
+    public BulkJobDTO submitDeduplicate() {
+        return submit(JobType.DEDUPLICATE, null, null, (int) photoService.countDuplicates(), null);
+    }
+
+    public BulkJobDTO submitSeed(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be positive: " + count);
+        }
+        return submit(JobType.SEED, null, null, count, null);
+    }
+
+    public BulkJobDTO submitGenerate(GenerateRequest request) {
+        datasetGenerator.validate(request);
+        try {
+            return submit(JobType.GENERATE, null, null, request.getCount(), objectMapper.writeValueAsString(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid generate request", e);
+        }
+    }
+
+    /**
+     * Current state of a job, including its recorded per-item errors.
+     */
+    public Optional<BulkJobDTO> getJob(UUID id) {
+        return jobRepository.findById(id).map(job -> {
+            BulkJobDTO dto = BulkJobDTO.fromEntity(job);
+            Map<String, String> errors = new LinkedHashMap<>();
+            errorRepository.findByJobIdOrderByCreatedAt(id, PageRequest.of(0, maxErrors))
+                    .forEach(error -> errors.put(error.getItemId(), error.getMessage()));
+            dto.setErrors(errors);
+            return dto;
+        });
+    }
+
+    public List<BulkJobDTO> listJobs(int limit) {
+        return jobRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(0, limit)).stream()
+                .map(BulkJobDTO::fromEntity)
+                .toList();
+    }
+
+    /**
+     * Cancel a queued or running job. A running job stops before its next chunk;
+     * chunks already committed are not undone.
+     */
+    public BulkJobDTO cancel(UUID id) {
+        BulkJobEntity job = jobRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Job not found: " + id));
+        Integer cancelled = transactionTemplate.execute(status -> jobRepository.cancel(id, Instant.now()));
+        if (cancelled == null || cancelled == 0) {
+            throw new IllegalStateException("Job already finished: " + job.getStatus());
+        }
+        log.info("Cancelled {} job {}", job.getType(), id);
+        announce(id);
+        return jobRepository.findById(id).map(BulkJobDTO::fromEntity).orElseThrow();
+    }
+
+    /**
+     * Stream a job's progress: the current state first, then an update per chunk until it finishes.
+     */
+    public SseEmitter subscribe(UUID id) {
+        BulkJobEntity job = jobRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Job not found: " + id));
+
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        Set<SseEmitter> emitters = subscribers.computeIfAbsent(id, key -> new CopyOnWriteArraySet<>());
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+
+        BulkJobDTO snapshot = BulkJobDTO.fromEntity(job);
+        notifier.execute(() -> {
+            send(emitter, snapshot);
+            if (snapshot.getStatus().isFinished()) {
+                emitters.remove(emitter);
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Pick up queued jobs, including those submitted on other nodes, and running jobs whose
+     * runner stopped sending heartbeats.
+     */
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${jobs.poll-interval-ms:10000}")
+    public void pickUpJobs() {
+        if (shuttingDown) {
+            return;
+        }
+        jobRepository.findRunnableIds(Instant.now().minus(staleAfter)).forEach(this::schedule);
+    }
+
+    @Scheduled(fixedDelay = 15000)
+    public void sendHeartbeats() {
+        notifier.execute(() -> subscribers.values().forEach(emitters -> emitters.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        })));
+    }
+
+    @Scheduled(fixedDelay = 3600000)
+    public void pruneFinishedJobs() {
+        List<UUID> ids = jobRepository.findIdsFinishedBefore(Instant.now().minus(retention));
+        if (ids.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            errorRepository.deleteByJobIds(ids);
+            jobRepository.deleteAllByIdInBatch(ids);
+        });
+        log.info("Pruned {} finished jobs", ids.size());
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        // Runners stop between chunks and hand their jobs back to the queue
+        shuttingDown = true;
+        runners.shutdown();
+        if (!runners.awaitTermination(30, TimeUnit.SECONDS)) {
+            runners.shutdownNow();
+        }
+        heartbeats.shutdownNow();
+        notifier.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    private BulkJobDTO submit(JobType type, String action, UUID[] itemIds, int totalItems, String parameters) {
+        Instant now = Instant.now();
+        BulkJobEntity job = jobRepository.save(BulkJobEntity.builder()
+                .id(UUID.randomUUID())
+                .type(type)
+                .status(JobStatus.QUEUED)
+                .action(action)
+                .itemIds(itemIds)
+                .parameters(parameters)
+                .totalItems(totalItems)
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+        log.info("Queued {} job {} with {} items", type, job.getId(), totalItems);
+
+        schedule(job.getId());
+        return BulkJobDTO.fromEntity(job);
+    }
+
+    private void schedule(UUID id) {
+        if (!active.add(id)) {
+            return;
+        }
+        try {
+            runners.execute(() -> {
+                try {
+                    run(id);
+                } finally {
+                    active.remove(id);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the job stays queued for the next node or restart
+            active.remove(id);
+        }
+    }
+
+    private void run(UUID id) {
+        UUID token = UUID.randomUUID();
+        Instant claimedAt = Instant.now();
+        Integer claimed = transactionTemplate.execute(status ->
+                jobRepository.claim(id, token, claimedAt, claimedAt.minus(staleAfter)));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+        leases.put(id, token);
+        try {
+            run(id, token);
+        } finally {
+            leases.remove(id, token);
+        }
+    }
+
+    private void run(UUID id, UUID token) {
+        BulkJobEntity job = jobRepository.findById(id).orElse(null);
+        if (job == null) {
+            return;
+        }
+        log.info("Running {} job {} from item {} of {}", job.getType(), id, job.getProcessedItems(), job.getTotalItems());
+        announce(id);
+
+        int processed = job.getProcessedItems();
+        int failed = job.getFailedItems();
+        String cursor = job.getResumeCursor();
+
+        try {
+            while (true) {
+                if (shuttingDown) {
+                    transactionTemplate.execute(status -> jobRepository.requeue(id, token, Instant.now()));
+                    log.info("Requeued {} job {} at item {} for shutdown", job.getType(), id, processed);
+                    return;
+                }
+                if (!token.equals(leases.get(id)) || jobRepository.findStatusById(id) != JobStatus.RUNNING) {
+                    log.info("{} job {} stopped at item {}", job.getType(), id, processed);
+                    return;
+                }
+
+                int offset = processed;
+                int recordedErrors = failed;
+                String after = cursor;
+                Timer.Sample sample = Timer.start();
+                ChunkResult result = transactionTemplate.execute(status -> {
+                    ChunkResult chunk = runChunk(job, offset, after);
+                    if (jobRepository.checkpoint(id, token, chunk.processed(), chunk.succeeded(),
+                            chunk.errors().size(), chunk.rows(), chunk.cursor(), Instant.now()) == 0) {
+                        throw new LeaseLostException(id);
+                    }
+                    recordErrors(id, chunk.errors(), maxErrors - recordedErrors);
+                    return chunk;
+                });
+                sample.stop(chunkTimer);
+
+                processed += result.processed();
+                failed += result.errors().size();
+                cursor = result.cursor();
+                itemsProcessed.increment(result.processed());
+
+                if (result.done()) {
+                    transactionTemplate.execute(status ->
+                            jobRepository.finish(id, token, JobStatus.COMPLETED, null, Instant.now()));
+                    if (job.getType() == JobType.GENERATE) {
+                        datasetGenerator.refreshDerivedState();
+                    }
+                    log.info("{} job {} completed: {} items, {} errors", job.getType(), id, processed, failed);
+                    return;
+                }
+                announce(id);
+            }
+        } catch (LeaseLostException e) {
+            log.warn("{} job {} was taken over by another runner; rolled back the chunk from item {}",
+                    job.getType(), id, processed);
+        } catch (Exception e) {
+            log.error("{} job {} failed at item {}: {}", job.getType(), id, processed, e.getMessage(), e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            transactionTemplate.execute(status -> jobRepository.finish(id, token, JobStatus.FAILED,
+                    message.length() > 2000 ? message.substring(0, 2000) : message, Instant.now()));
+        } finally {
+            announce(id);
+        }
+    }
+
+    // A failed renewal means the job was cancelled, finished or taken over; its runner stops
+    // before the next chunk. Database errors keep the lease so a blip does not stop the job
+    private void renewLeases() {
+        leases.forEach((id, token) -> {
+            try {
+                Integer renewed = transactionTemplate.execute(status -> jobRepository.heartbeat(id, token, Instant.now()));
+                if (renewed != null && renewed == 0) {
+                    leases.remove(id, token);
+                    log.info("Lease on job {} ended", id);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to renew lease on job {}: {}", id, e.getMessage());
+            }
+        });
+    }
+
+    // Runs inside the chunk transaction; the photo service calls join it
+    private ChunkResult runChunk(BulkJobEntity job, int offset, String after) {
+        switch (job.getType()) {
+            case BULK_ACTION, BULK_DELETE -> {
+                UUID[] itemIds = job.getItemIds();
+                int end = Math.min(offset + chunkSize, itemIds.length);
+                if (offset >= end) {
+                    return new ChunkResult(0, 0, Map.of(), null, 0, true);
+                }
+                List<UUID> chunk = Arrays.asList(itemIds).subList(offset, end);
+                BulkActionResponse response = job.getType() == JobType.BULK_ACTION
+                        ? photoService.bulkAction(job.getAction(), chunk)
+                        : photoService.bulkDelete(chunk);
+                return new ChunkResult(chunk.size(), response.getSuccessCount(), response.getErrors(), null, 0,
+                        end >= itemIds.length);
+            }
+            case DEDUPLICATE -> {
+                PhotoService.DuplicateBatch batch = photoService.deleteDuplicateBatch(after != null ? after : "");
+                if (batch == null) {
+                    return new ChunkResult(0, 0, Map.of(), after, 0, true);
+                }
+                return new ChunkResult(batch.removed().size() + batch.errors().size(), batch.removed().size(),
+                        batch.errors(), batch.nextCursor(), 0, false);
+            }
+            case SEED -> {
+                int count = Math.min(chunkSize, job.getTotalItems() - offset);
+                if (count <= 0) {
+                    return new ChunkResult(0, 0, Map.of(), null, 0, true);
+                }
+                seedService.seedPhotos(offset, count);
+                return new ChunkResult(count, count, Map.of(), null, 0, offset + count >= job.getTotalItems());
+            }
+            case GENERATE -> {
+                int count = Math.min(datasetGenerator.getBatchSize(), job.getTotalItems() - offset);
+                if (count <= 0) {
+                    return new ChunkResult(0, 0, Map.of(), null, 0, true);
+                }
+                DatasetGenerator.BatchResult batch = datasetGenerator.generateBatch(readParameters(job), offset, count);
+                return new ChunkResult(count, count, Map.of(), null, batch.rows(), offset + count >= job.getTotalItems());
+            }
+            default -> throw new IllegalStateException("Unsupported job type: " + job.getType());
+        }
+    }
+
+    private GenerateRequest readParameters(BulkJobEntity job) {
+        try {
+            return objectMapper.readValue(job.getParameters(), GenerateRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable parameters for job " + job.getId(), e);
+        }
+    }
+
+    // Only the first maxErrors failures of a job are kept; the counters still include the rest
+    private void recordErrors(UUID jobId, Map<String, String> errors, int room) {
+        if (errors.isEmpty() || room <= 0) {
+            return;
+        }
+        Instant now = Instant.now();
+        errorRepository.saveAll(errors.entrySet().stream()
+                .limit(room)
+                .map(error -> BulkJobErrorEntity.builder()
+                        .jobId(jobId)
+                        .itemId(error.getKey())
+                        .message(error.getValue().length() > 2000 ? error.getValue().substring(0, 2000) : error.getValue())
+                        .createdAt(now)
+                        .build())
+                .toList());
+    }
+
+    private void announce(UUID id) {
+        try {
+            notificationService.publish(JOBS_CHANNEL, id.toString());
+        } catch (Exception e) {
+            log.warn("Failed to announce progress of job {}: {}", id, e.getMessage());
+        }
+    }
+
+    private void onJobChanged(String payload) {
+        // A null payload means notifications may have been missed; refresh every subscribed job
+        if (payload == null) {
+            subscribers.keySet().forEach(this::pushUpdate);
+            return;
+        }
+        pushUpdate(UUID.fromString(payload));
+    }
+
+    private void pushUpdate(UUID id) {
+        Set<SseEmitter> emitters = subscribers.get(id);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        jobRepository.findById(id).map(BulkJobDTO::fromEntity).ifPresent(job -> {
+            emitters.forEach(emitter -> send(emitter, job));
+            if (job.getStatus().isFinished()) {
+                subscribers.remove(id);
+                emitters.forEach(SseEmitter::complete);
+            }
+        });
+    }
+
+    private void send(SseEmitter emitter, BulkJobDTO job) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(job.getStatus().isFinished() ? "finished" : "progress")
+                    .data(job, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            Set<SseEmitter> emitters = subscribers.get(job.getId());
+            if (emitters != null) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+}
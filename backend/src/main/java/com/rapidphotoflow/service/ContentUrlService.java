@@ -0,0 +1,174 @@
+package com.rapidphotoflow.service;
+
+import com.rapidphotoflow.dto.PhotoDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Direct content URLs so image bytes can bypass the backend.
+ * In presigned mode, URLs are signed for the configured TTL and reused until the refresh
+ * window they were signed in ends, so every URL handed out stays valid for at least the
+ * refresh margin past that point. Window numbers are folded into ETags, so clients
+ * revalidating after a refresh receive new URLs rather than a 304.
+ */
+@Service
+@Slf4j
+public class ContentUrlService {
+
+    public enum Mode {
+        // Stream bytes through the backend
+        PROXY,
+        // Short-lived presigned S3 URLs
+        PRESIGNED,
+        // Stable URLs on a CDN in front of the bucket
+        CDN
+    }
+
+    private record CachedUrl(String url, long window) {
+    }
+
+    private final S3StorageService s3StorageService;
+    private final Mode mode;
+    private final boolean redirect;
+    private final boolean embedUrls;
+    private final Duration presignTtl;
+    private final long windowMs;
+    private final String cdnBaseUrl;
+    private final Map<UUID, CachedUrl> cache;
+
+    private final LongAdder signed = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    public ContentUrlService(
+            S3StorageService s3StorageService,
+            MeterRegistry meterRegistry,
+            @Value("${content.delivery.mode:proxy}") String mode,
+            @Value("${content.delivery.redirect:true}") boolean redirect,
+            @Value("${content.delivery.embed-urls:false}") boolean embedUrls,
+            @Value("${content.delivery.presign-ttl-seconds:900}") long presignTtlSeconds,
+            @Value("${content.delivery.refresh-before-expiry-seconds:120}") long refreshBeforeExpirySeconds,
+            @Value("${content.delivery.cdn-base-url:}") String cdnBaseUrl,
+            @Value("${cache.content-urls.max-size:50000}") int maxSize) {
+        if (refreshBeforeExpirySeconds >= presignTtlSeconds) {
+            throw new IllegalStateException("content.delivery.refresh-before-expiry-seconds must be below presign-ttl-seconds");
+        }
+        this.s3StorageService = s3StorageService;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase());
+        this.redirect = redirect;
+        this.embedUrls = embedUrls;
+        this.presignTtl = Duration.ofSeconds(presignTtlSeconds);
+        this.windowMs = (presignTtlSeconds - refreshBeforeExpirySeconds) * 1000;
+        this.cdnBaseUrl = cdnBaseUrl.endsWith("/") ? cdnBaseUrl.substring(0, cdnBaseUrl.length() - 1) : cdnBaseUrl;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedUrl> eldest) {
+                return size() > maxSize;
+            }
+        };
+
+        if (this.mode == Mode.CDN && this.cdnBaseUrl.isEmpty()) {
+            throw new IllegalStateException("content.delivery.cdn-base-url is required in cdn mode");
+        }
+        log.info("Content delivery mode {} (redirect={}, embedUrls={})", this.mode, redirect, embedUrls);
+
+        FunctionCounter.builder("content.urls.signed", signed, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("content.urls.reused", reused, LongAdder::sum).register(meterRegistry);
+    }
+
+    /**
+     * True when GET /content should answer with a redirect instead of the bytes.
+     */
+    public boolean isRedirecting() {
+        return mode != Mode.PROXY && redirect;
+    }
+
+    /**
+     * True when photo DTOs should carry a direct content URL.
+     */
+    public boolean isEmbedding() {
+        return mode != Mode.PROXY && embedUrls;
+    }
+
+    /**
+     * Direct URL for the photo's content, or null in proxy mode.
+     */
+    public String getUrl(UUID photoId) {
+        switch (mode) {
+            case CDN:
+                return cdnBaseUrl + "/photos/" + photoId;
+            case PRESIGNED:
+                long window = currentWindow();
+                synchronized (cache) {
+                    CachedUrl cached = cache.get(photoId);
+                    if (cached != null && cached.window() == window) {
+                        reused.increment();
+                        return cached.url();
+                    }
+                }
+                String url = s3StorageService.presignPhotoUrl(photoId, presignTtl);
+                signed.increment();
+                synchronized (cache) {
+                    cache.put(photoId, new CachedUrl(url, window));
+                }
+                return url;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * How long a client may reuse a URL handed out now.
+     */
+    public Duration getReuseDuration() {
+        if (mode == Mode.CDN) {
+            return presignTtl;
+        }
+        long now = System.currentTimeMillis();
+        return Duration.ofMillis((now / windowMs + 1) * windowMs - now);
+    }
+
+    /**
+     * Suffix for ETags of responses that embed URLs, changing whenever URLs are refreshed.
+     */
+    public String getVersionSuffix() {
+        return isEmbedding() && mode == Mode.PRESIGNED ? "-u" + currentWindow() : "";
+    }
+
+    /**
+     * True when URLs embedded in a response produced at the given time may have expired
+     * since, so a delta sync client needs a full reload to pick up fresh ones.
+     */
+    public boolean refreshedSince(Instant since) {
+        return isEmbedding() && mode == Mode.PRESIGNED && since.toEpochMilli() / windowMs != currentWindow();
+    }
+
+    public void embed(Collection<PhotoDTO> photos) {
+        if (!isEmbedding()) {
+            return;
+        }
+        for (PhotoDTO photo : photos) {
+            photo.setContentUrl(getUrl(photo.getId()));
+        }
+    }
+
+    public void embed(PhotoDTO photo) {
+        if (isEmbedding()) {
+            photo.setContentUrl(getUrl(photo.getId()));
+        }
+    }
+
+    private long currentWindow() {
+        return System.currentTimeMillis() / windowMs;
+    }
+}
@@ -0,0 +1,408 @@
+package com.rapidphotoflow.service;
+
+import com.rapidphotoflow.domain.EventLog;
+import com.rapidphotoflow.domain.EventType;
+import com.rapidphotoflow.domain.PhotoStatus;
+import com.rapidphotoflow.dto.GenerateRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bulk-loads synthetic photo libraries for load testing.
+ * Photos, tags and event logs are streamed into Postgres with COPY, one batch per
+ * transaction, following the configured status, tag and uploader distributions.
+ * Placeholder objects are optionally written to S3 in parallel with the load. Bulk loads
+ * bypass the incremental caches, so call {@link #refreshDerivedState()} once done.
+ */
+@Service
+@Slf4j
+public class DatasetGenerator {
+
+    private static final String[] FILENAME_STEMS = {
+            "IMG", "DSC", "vacation", "product_shot", "landscape", "portrait",
+            "document_scan", "receipt", "screenshot", "architecture", "nature", "food"
+    };
+
+    private static final String[] TAG_WORDS = {
+            "beach", "sunset", "family", "portrait", "landscape", "city", "night", "food",
+            "travel", "mountains", "forest", "wedding", "birthday", "pets", "dog", "cat",
+            "snow", "summer", "winter", "architecture", "street", "product", "receipt", "document",
+            "friends", "concert", "sports", "flowers", "garden", "car", "ocean", "lake"
+    };
+
+    private static final String[] FAILURE_REASONS = {
+            "Corrupt image data", "Unsupported image format", "Processing timeout", "Storage unavailable"
+    };
+
+    private static final Map<PhotoStatus, Double> DEFAULT_STATUS_WEIGHTS = new EnumMap<>(Map.of(
+            PhotoStatus.PENDING, 2.0,
+            PhotoStatus.PROCESSING, 1.0,
+            PhotoStatus.PROCESSED, 2.0,
+            PhotoStatus.FAILED, 1.0,
+            PhotoStatus.APPROVED, 1.0,
+            PhotoStatus.REJECTED, 1.0));
+
+    private static final int RECENT_HASHES = 1024;
+
+    /**
+     * Rows written by one batch.
+     */
+    public record BatchResult(int photos, long tags, long events) {
+        public long rows() {
+            return photos + tags + events;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final S3StorageService s3StorageService;
+    private final PhotoStatusCounter statusCounter;
+    private final TagFacetAggregator facetAggregator;
+    private final TagIndex tagIndex;
+    private final EventPartitionManager partitionManager;
+    private final PipelineAnalyticsService pipelineAnalytics;
+    private final int batchSize;
+    private final ExecutorService uploadPool;
+
+    private final Counter photoRows;
+    private final Counter tagRows;
+    private final Counter eventRows;
+    private final Counter objectsUploaded;
+
+    public DatasetGenerator(
+            JdbcTemplate jdbcTemplate,
+            S3StorageService s3StorageService,
+            PhotoStatusCounter statusCounter,
+            TagFacetAggregator facetAggregator,
+            TagIndex tagIndex,
+            EventPartitionManager partitionManager,
+            PipelineAnalyticsService pipelineAnalytics,
+            MeterRegistry meterRegistry,
+            @Value("${seed.generator.batch-size:10000}") int batchSize,
+            @Value("${seed.generator.upload-threads:16}") int uploadThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.s3StorageService = s3StorageService;
+        this.statusCounter = statusCounter;
+        this.facetAggregator = facetAggregator;
+        this.tagIndex = tagIndex;
+        this.partitionManager = partitionManager;
+        this.pipelineAnalytics = pipelineAnalytics;
+        this.batchSize = batchSize;
+        this.uploadPool = Executors.newFixedThreadPool(uploadThreads);
+
+        this.photoRows = Counter.builder("seed.generator.rows").tag("table", "photos").register(meterRegistry);
+        this.tagRows = Counter.builder("seed.generator.rows").tag("table", "photo_tags").register(meterRegistry);
+        this.eventRows = Counter.builder("seed.generator.rows").tag("table", "event_logs").register(meterRegistry);
+        this.objectsUploaded = Counter.builder("seed.generator.objects").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploadPool.shutdownNow();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Reject requests whose distributions cannot be sampled or whose photos could not be processed.
+     */
+    public void validate(GenerateRequest request) {
+        Map<PhotoStatus, Double> weights = statusWeights(request);
+        if (weights.values().stream().anyMatch(weight -> weight == null || weight < 0)) {
+            throw new IllegalArgumentException("Status weights must not be negative");
+        }
+        if (weights.values().stream().mapToDouble(Double::doubleValue).sum() <= 0) {
+            throw new IllegalArgumentException("At least one status weight must be positive");
+        }
+        // The processor reads every PENDING photo's object, so without one each would just fail
+        if (!request.isUploadObjects() && weights.getOrDefault(PhotoStatus.PENDING, 0.0) > 0) {
+            throw new IllegalArgumentException("PENDING photos require uploadObjects, since processing reads their content from S3");
+        }
+    }
+
+    /**
+     * Generate photos [offset, offset + count) of the dataset. With a random seed, each batch
+     * is derived from the seed and its offset, so a resumed load produces the same rows.
+     */
+    @Transactional
+    public BatchResult generateBatch(GenerateRequest request, int offset, int count) {
+        long start = System.nanoTime();
+        SplittableRandom random = request.getRandomSeed() != null
+                ? new SplittableRandom(request.getRandomSeed() * 1_000_003L + offset)
+                : new SplittableRandom();
+
+        List<UUID> uploaders = uploaderIds(request.getUploaders());
+        if (offset == 0 && !uploaders.isEmpty()) {
+            insertUsers(uploaders);
+        }
+
+        Map<PhotoStatus, Double> weights = statusWeights(request);
+        List<PhotoStatus> statuses = new ArrayList<>(weights.keySet());
+        Sampler statusSampler = Sampler.weighted(statuses.stream().mapToDouble(weights::get).toArray());
+        Sampler tagSampler = Sampler.zipf(request.getTagVocabularySize(), request.getTagSkew());
+        Sampler uploaderSampler = uploaders.isEmpty() ? null : Sampler.zipf(uploaders.size(), request.getUploaderSkew());
+
+        StringBuilder photos = new StringBuilder(count * 256);
+        StringBuilder tags = new StringBuilder(count * 32);
+        StringBuilder events = new StringBuilder(count * 256);
+        List<UUID> photoIds = new ArrayList<>(count);
+        String[] recentHashes = new String[RECENT_HASHES];
+        long tagCount = 0;
+        long eventCount = 0;
+
+        Instant now = Instant.now();
+        long spreadSeconds = request.getSpreadDays() * 86_400L;
+
+        for (int i = 0; i < count; i++) {
+            UUID id = randomUuid(random);
+            PhotoStatus status = statuses.get(statusSampler.sample(random));
+            boolean png = random.nextInt(4) == 0;
+            String filename = FILENAME_STEMS[random.nextInt(FILENAME_STEMS.length)] + "_" + (offset + i) + (png ? ".png" : ".jpg");
+            String failureReason = status == PhotoStatus.FAILED ? FAILURE_REASONS[random.nextInt(FAILURE_REASONS.length)] : null;
+            Instant uploadedAt = now.minusSeconds(random.nextLong(spreadSeconds));
+            UUID uploader = uploaderSampler != null ? uploaders.get(uploaderSampler.sample(random)) : null;
+
+            String hash;
+            String previous = i > 0 ? recentHashes[random.nextInt(Math.min(i, RECENT_HASHES))] : null;
+            if (previous != null && random.nextDouble() < request.getDuplicateRate()) {
+                hash = previous;
+            } else {
+                hash = String.format("%016x%016x", random.nextLong(), random.nextLong());
+            }
+            recentHashes[i % RECENT_HASHES] = hash;
+
+            Instant updatedAt = uploadedAt;
+            updatedAt = event(events, random, id, uploadedAt, EventType.PHOTO_CREATED, null, updatedAt);
+            eventCount++;
+            if (status != PhotoStatus.PENDING) {
+                updatedAt = event(events, random, id, uploadedAt.plusSeconds(2), EventType.PROCESSING_STARTED,
+                        null, updatedAt);
+                eventCount++;
+            }
+            if (status == PhotoStatus.FAILED) {
+                updatedAt = event(events, random, id, uploadedAt.plusSeconds(5), EventType.PROCESSING_FAILED,
+                        // Reasons are fixed strings with nothing to escape
+                        "{\"" + EventLog.REASON + "\":\"" + failureReason + "\"}", updatedAt);
+                eventCount++;
+            } else if (status == PhotoStatus.PROCESSED || status == PhotoStatus.APPROVED || status == PhotoStatus.REJECTED) {
+                updatedAt = event(events, random, id, uploadedAt.plusSeconds(5), EventType.PROCESSING_COMPLETED,
+                        null, updatedAt);
+                eventCount++;
+            }
+            if (status == PhotoStatus.APPROVED) {
+                updatedAt = event(events, random, id, uploadedAt.plusSeconds(10), EventType.APPROVED, null, updatedAt);
+                eventCount++;
+            } else if (status == PhotoStatus.REJECTED) {
+                updatedAt = event(events, random, id, uploadedAt.plusSeconds(10), EventType.REJECTED, null, updatedAt);
+                eventCount++;
+            }
+
+            csv(photos, id, filename, png ? "image/png" : "image/jpeg", 50_000 + random.nextInt(5_000_000), hash,
+                    "photos/" + id, status.name(), failureReason, uploadedAt, updatedAt, uploader);
+
+            int tagTotal = random.nextInt(request.getMaxTagsPerPhoto() + 1);
+            Set<Integer> chosen = new HashSet<>();
+            for (int attempt = 0; chosen.size() < tagTotal && attempt < tagTotal * 4; attempt++) {
+                int tag = tagSampler.sample(random);
+                if (chosen.add(tag)) {
+                    csv(tags, id, tagName(tag));
+                    tagCount++;
+                }
+            }
+            photoIds.add(id);
+        }
+
+        // Objects upload while the rows stream in
+        CompletableFuture<Void> uploads = request.isUploadObjects()
+                ? CompletableFuture.allOf(photoIds.stream()
+                        .map(id -> CompletableFuture.runAsync(() -> {
+                            s3StorageService.uploadPhoto(id, SeedService.PLACEHOLDER_IMAGE, "image/png");
+                            objectsUploaded.increment();
+                        }, uploadPool))
+                        .toArray(CompletableFuture[]::new))
+                : CompletableFuture.completedFuture(null);
+
+        // Generated history reaches back before the partitions made ahead of time
+        partitionManager.ensurePartitions(now.minusSeconds(spreadSeconds), now.plusSeconds(60));
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                copy.copyIn("COPY photos (id, filename, mime_type, size_bytes, content_hash, s3_key, status, "
+                        + "failure_reason, uploaded_at, updated_at, uploaded_by_user_id) FROM STDIN WITH (FORMAT csv)",
+                        new StringReader(photos.toString()));
+                copy.copyIn("COPY photo_tags (photo_id, tag) FROM STDIN WITH (FORMAT csv)",
+                        new StringReader(tags.toString()));
+                copy.copyIn("COPY event_logs (id, photo_id, event_type, params, timestamp) FROM STDIN WITH (FORMAT csv)",
+                        new StringReader(events.toString()));
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to stream generated rows", e);
+            }
+            return null;
+        });
+
+        uploads.join();
+
+        photoRows.increment(count);
+        tagRows.increment(tagCount);
+        eventRows.increment(eventCount);
+
+        BatchResult result = new BatchResult(count, tagCount, eventCount);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("Generated photos {}-{}: {} rows in {}ms ({} rows/s)", offset, offset + count - 1,
+                result.rows(), Math.round(seconds * 1000), Math.round(result.rows() / Math.max(seconds, 1e-3)));
+        return result;
+    }
+
+    /**
+     * Re-sync counters, facets, the tag index and pipeline analytics after a load.
+     */
+    public void refreshDerivedState() {
+        statusCounter.reconcile();
+        facetAggregator.reconcile();
+        tagIndex.rebuildEverywhere();
+        pipelineAnalytics.rebuild();
+    }
+
+    // The default mix leaves out PENDING when no objects are uploaded
+    private Map<PhotoStatus, Double> statusWeights(GenerateRequest request) {
+        if (request.getStatusWeights() != null && !request.getStatusWeights().isEmpty()) {
+            return new EnumMap<>(request.getStatusWeights());
+        }
+        Map<PhotoStatus, Double> weights = new EnumMap<>(DEFAULT_STATUS_WEIGHTS);
+        if (!request.isUploadObjects()) {
+            weights.remove(PhotoStatus.PENDING);
+        }
+        return weights;
+    }
+
+    // Synthetic users have stable IDs, so repeated loads attribute photos to the same users
+    private List<UUID> uploaderIds(int uploaders) {
+        List<UUID> ids = new ArrayList<>(uploaders);
+        for (int i = 0; i < uploaders; i++) {
+            ids.add(UUID.nameUUIDFromBytes(("synthetic-user-" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        return ids;
+    }
+
+    private void insertUsers(List<UUID> ids) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            String name = String.format("loadtest-user-%05d", i);
+            rows.add(new Object[]{ids.get(i), "synthetic-" + i, name + "@example.com", name, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, cognito_sub, email, username, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING", rows);
+    }
+
+    private Instant event(StringBuilder events, SplittableRandom random, UUID photoId, Instant timestamp,
+                          EventType type, String paramsJson, Instant latest) {
+        csv(events, randomUuid(random), photoId, type.name(), paramsJson, timestamp);
+        return timestamp.isAfter(latest) ? timestamp : latest;
+    }
+
+    private String tagName(int index) {
+        String word = TAG_WORDS[index % TAG_WORDS.length];
+        return index < TAG_WORDS.length ? word : word + "-" + (index / TAG_WORDS.length);
+    }
+
+    // Version 4 layout, drawn from the batch's generator so seeded loads are reproducible
+    private static UUID randomUuid(SplittableRandom random) {
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(msb, lsb);
+    }
+
+    // One CSV line; null is an unquoted empty field, which COPY reads as NULL
+    private static void csv(StringBuilder out, Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            if (values[i] == null) {
+                continue;
+            }
+            String value = values[i].toString();
+            if (value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                out.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                out.append(value);
+            }
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Samples indexes by weight via binary search over the cumulative distribution.
+     */
+    private static final class Sampler {
+        private final double[] cumulative;
+
+        private Sampler(double[] cumulative) {
+            this.cumulative = cumulative;
+        }
+
+        static Sampler weighted(double[] weights) {
+            double[] cumulative = new double[weights.length];
+            double total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                total += weights[i];
+                cumulative[i] = total;
+            }
+            return new Sampler(cumulative);
+        }
+
+        // Rank i has weight 1 / (i + 1)^exponent
+        static Sampler zipf(int size, double exponent) {
+            double[] weights = new double[size];
+            for (int i = 0; i < size; i++) {
+                weights[i] = 1.0 / Math.pow(i + 1, exponent);
+            }
+            return weighted(weights);
+        }
+
+        int sample(SplittableRandom random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] <= target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
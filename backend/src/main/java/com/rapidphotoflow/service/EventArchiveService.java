@@ -0,0 +1,200 @@
+package com.rapidphotoflow.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidphotoflow.domain.EventLog;
+import com.rapidphotoflow.domain.EventType;
+import com.rapidphotoflow.entity.EventArchiveEntity;
+import com.rapidphotoflow.repository.EventArchiveRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archives event log partitions to S3 as gzipped NDJSON and searches the archives on demand.
+ * Archived events are no longer in the database, so searching them downloads and scans every
+ * archive overlapping the requested range; it is meant for occasional investigations.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventArchiveService {
+
+    private static final int FETCH_SIZE = 5000;
+    private static final TypeReference<Map<String, String>> PARAMS_TYPE = new TypeReference<>() {
+    };
+    private static final Comparator<EventLog> OLDEST_FIRST =
+            Comparator.comparing(EventLog::getTimestamp).thenComparing(EventLog::getId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final S3StorageService s3StorageService;
+    private final EventArchiveRepository archiveRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * One line of an archive. Message is only set on events stored before structured params.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record ArchivedEvent(UUID id, UUID photoId, EventType type, Map<String, String> params, String message,
+                         Instant timestamp) {
+    }
+
+    /**
+     * Write every row of a detached partition to S3 and record the archive. Must run inside
+     * a transaction so rows are read through a cursor rather than all at once.
+     *
+     * @param rangeStart lower bound of the partition, or null if it had none
+     */
+    public EventArchiveEntity archive(String table, Instant rangeStart, Instant rangeEnd) {
+        Instant archivedAt = Instant.now();
+        String objectName = "event_logs/" + table + "-" + archivedAt.toEpochMilli() + ".ndjson.gz";
+        Path file = null;
+        try {
+            file = Files.createTempFile("event-archive-", ".ndjson.gz");
+            long[] rows = {0};
+            Instant[] oldest = {null};
+
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8))) {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            "SELECT id, photo_id, event_type, params::text AS params, message, timestamp FROM " + table
+                                    + " ORDER BY timestamp, id");
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                }, (RowCallbackHandler) rs -> {
+                    try {
+                        String params = rs.getString("params");
+                        ArchivedEvent event = new ArchivedEvent(
+                                rs.getObject("id", UUID.class),
+                                rs.getObject("photo_id", UUID.class),
+                                EventType.valueOf(rs.getString("event_type")),
+                                params != null ? objectMapper.readValue(params, PARAMS_TYPE) : null,
+                                rs.getString("message"),
+                                rs.getTimestamp("timestamp").toInstant());
+                        if (oldest[0] == null) {
+                            oldest[0] = event.timestamp();
+                        }
+                        writer.write(objectMapper.writeValueAsString(event));
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rows[0]++;
+                });
+            }
+
+            long size = Files.size(file);
+            s3StorageService.uploadArchive(objectName, file, "application/x-ndjson");
+            if (s3StorageService.getArchiveSize(objectName) != size) {
+                throw new IllegalStateException("Archive " + objectName + " did not upload completely");
+            }
+
+            EventArchiveEntity archive = archiveRepository.save(EventArchiveEntity.builder()
+                    .partitionName(table)
+                    .objectName(objectName)
+                    .rangeStart(rangeStart != null ? rangeStart : oldest[0] != null ? oldest[0] : rangeEnd)
+                    .rangeEnd(rangeEnd)
+                    .rowCount(rows[0])
+                    .sizeBytes(size)
+                    .archivedAt(archivedAt)
+                    .build());
+            log.info("Archived {} events from {} to {} ({} bytes)", rows[0], table, objectName, size);
+            return archive;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive " + table, e);
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Failed to delete temporary archive {}: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * The newest archived events in [from, to), optionally for one photo or one type.
+     * Either bound may be null for an open range.
+     */
+    public List<EventLog> search(Instant from, Instant to, UUID photoId, EventType type, int limit) {
+        Instant lower = from != null ? from : Instant.EPOCH;
+        Instant upper = to != null ? to : Instant.now();
+
+        // Keeps the newest matches seen so far; the head is the oldest of them
+        PriorityQueue<EventLog> newest = new PriorityQueue<>(limit + 1, OLDEST_FIRST);
+        for (EventArchiveEntity archive : archiveRepository.findOverlapping(lower, upper)) {
+            // Archives come newest first, so once the page is full and an archive ends
+            // before its oldest event, no remaining archive can contribute
+            if (newest.size() >= limit && !archive.getRangeEnd().isAfter(newest.peek().getTimestamp())) {
+                break;
+            }
+            try (InputStream stream = s3StorageService.openArchive(archive.getObjectName())) {
+                if (stream == null) {
+                    continue;
+                }
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(stream), StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    ArchivedEvent event = objectMapper.readValue(line, ArchivedEvent.class);
+                    if (event.timestamp().isBefore(lower) || !event.timestamp().isBefore(upper)
+                            || (photoId != null && !photoId.equals(event.photoId()))
+                            || (type != null && type != event.type())) {
+                        continue;
+                    }
+                    newest.add(toEventLog(event));
+                    if (newest.size() > limit) {
+                        newest.poll();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read archive " + archive.getObjectName(), e);
+            }
+        }
+
+        List<EventLog> events = new ArrayList<>(newest);
+        events.sort(OLDEST_FIRST.reversed());
+        return events;
+    }
+
+    private EventLog toEventLog(ArchivedEvent event) {
+        return EventLog.builder()
+                .id(event.id())
+                .photoId(event.photoId())
+                .type(event.type())
+                .params(event.params())
+                .message(event.message())
+                .timestamp(event.timestamp())
+                .build();
+    }
+}
@@ -0,0 +1,329 @@
+package com.rapidphotoflow.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps event_logs range-partitioned by month on timestamp.
+ * <p>
+ * Monthly partitions (event_logs_pYYYYMM) are created ahead of time, so inserts only touch
+ * the current month's indexes, and newest-first queries read the newest partitions and stop
+ * at their limit. Partitions older than the retention window are detached, archived to S3
+ * by {@link EventArchiveService} and dropped; a partition whose archive fails stays detached
+ * and is retried on the next run.
+ * <p>
+ * Hibernate creates event_logs as a plain table. On startup that table is renamed and
+ * attached as a single partition holding everything before next month
+ * (event_logs_beforeYYYYMM), copying nothing; a failed swap is retried by every
+ * maintenance run until it succeeds. Its rows are checked against the bound and its
+ * new key indexed beforehand without blocking writers, so the swap itself is catalog-only.
+ * <p>
+ * Events outside every monthly partition land in a DEFAULT partition (event_logs_default)
+ * instead of failing; they are moved out when their month's partition is created.
+ */
+@Service
+@Slf4j
+public class EventPartitionManager {
+
+    private static final String MONTH_PREFIX = "event_logs_p";
+    private static final String BEFORE_PREFIX = "event_logs_before";
+    private static final String DEFAULT_PARTITION = "event_logs_default";
+    private static final String BOUND_CHECK = "event_logs_partition_bound";
+    private static final String KEY_INDEX = "event_logs_id_timestamp_key";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("uuuuMM");
+    private static final String LOCK_NAME = "event_logs_partitions";
+    // DDL on the parent waits at most this long for its lock rather than queueing inserts behind it
+    private static final String LOCK_TIMEOUT = "5s";
+
+    // Must match the indexes declared on EventLogEntity
+    private static final List<String> INDEXES = List.of(
+            "idx_event_logs_timestamp_id ON event_logs (\"timestamp\", id)",
+            "idx_event_logs_photo_id_timestamp ON event_logs (photo_id, \"timestamp\", id)",
+            "idx_event_logs_event_type_timestamp ON event_logs (event_type, \"timestamp\", id)"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EventArchiveService archiveService;
+    private final int premakeMonths;
+    private final int retentionMonths;
+
+    public EventPartitionManager(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            EventArchiveService archiveService,
+            @Value("${events.partitions.premake-months:2}") int premakeMonths,
+            @Value("${events.retention.months:12}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        // DDL commits on its own, never holding the parent's lock for a caller's whole transaction
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.archiveService = archiveService;
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            partitionExistingTable();
+            ensureUpcomingPartitions();
+        } catch (Exception e) {
+            log.error("Failed to set up event log partitions: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(initialDelay = 3600000, fixedDelayString = "${events.partitions.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        try {
+            // Usually a no-op; finishes the startup swap if it failed
+            partitionExistingTable();
+            ensureUpcomingPartitions();
+            archiveExpiredPartitions();
+        } catch (Exception e) {
+            log.error("Event log partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Create any missing monthly partitions for events between the two instants, for writers
+     * that log events outside the upcoming months (such as the dataset generator).
+     * Does nothing until event_logs is partitioned.
+     */
+    public void ensurePartitions(Instant from, Instant to) {
+        YearMonth first = YearMonth.from(from.atZone(ZoneOffset.UTC));
+        YearMonth last = YearMonth.from(to.atZone(ZoneOffset.UTC));
+        if (!isPartitioned() || missingMonths(first, last).isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            lockForDdl();
+            for (YearMonth month : missingMonths(first, last)) {
+                String name = MONTH_PREFIX + month.format(MONTH_FORMAT);
+                String range = "FROM (" + bound(month) + ") TO (" + bound(month.plusMonths(1)) + ")";
+                if (attachedPartitions().contains(DEFAULT_PARTITION)) {
+                    // A new range must not overlap rows already in the default partition, so move them
+                    jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE event_logs INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+                    int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                            + " WHERE \"timestamp\" >= " + bound(month) + " AND \"timestamp\" < " + bound(month.plusMonths(1))
+                            + " RETURNING *) INSERT INTO " + name + " SELECT * FROM moved");
+                    jdbcTemplate.execute("ALTER TABLE event_logs ATTACH PARTITION " + name + " FOR VALUES " + range);
+                    log.info("Created event log partition {} with {} events from the default partition", name, moved);
+                } else {
+                    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF event_logs FOR VALUES " + range);
+                    log.info("Created event log partition {}", name);
+                }
+            }
+        });
+    }
+
+    private void ensureUpcomingPartitions() {
+        ensureDefaultPartition();
+        Instant now = Instant.now();
+        ensurePartitions(now, now.atZone(ZoneOffset.UTC).plusMonths(premakeMonths).toInstant());
+    }
+
+    private void partitionExistingTable() {
+        if (!"r".equals(relkind())) {
+            return;
+        }
+
+        // Everything up to the swap runs without blocking writers, so the swap only renames
+        // and attaches: the validated CHECK lets ATTACH skip scanning for out-of-range rows
+        // and the unique constraint is adopted as the partition's primary key index
+        Instant latest = jdbcTemplate.queryForObject("SELECT max(\"timestamp\") FROM event_logs", Instant.class);
+        YearMonth nextMonth = YearMonth.now(ZoneOffset.UTC).plusMonths(1);
+        YearMonth afterLatest = latest != null ? YearMonth.from(latest.atZone(ZoneOffset.UTC)).plusMonths(1) : nextMonth;
+        YearMonth bound = afterLatest.isAfter(nextMonth) ? afterLatest : nextMonth;
+        String legacy = BEFORE_PREFIX + bound.format(MONTH_FORMAT);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            lockForDdl();
+            jdbcTemplate.execute("ALTER TABLE event_logs DROP CONSTRAINT IF EXISTS " + BOUND_CHECK);
+            jdbcTemplate.execute("ALTER TABLE event_logs ADD CONSTRAINT " + BOUND_CHECK
+                    + " CHECK (\"timestamp\" IS NOT NULL AND \"timestamp\" < " + bound(bound) + ") NOT VALID");
+        });
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.execute("ALTER TABLE event_logs VALIDATE CONSTRAINT " + BOUND_CHECK));
+        // CONCURRENTLY cannot run inside a transaction
+        jdbcTemplate.execute("CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS " + KEY_INDEX
+                + " ON event_logs (id, \"timestamp\")");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            lockForDdl();
+            if (!"r".equals(relkind())) {
+                return;
+            }
+            jdbcTemplate.execute("LOCK TABLE event_logs IN ACCESS EXCLUSIVE MODE");
+            jdbcTemplate.execute("ALTER TABLE event_logs ADD CONSTRAINT " + KEY_INDEX + " UNIQUE USING INDEX " + KEY_INDEX);
+
+            // Free the index names for the partitioned parent
+            List<String> indexes = jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes "
+                    + "WHERE schemaname = current_schema() AND tablename = 'event_logs'", String.class);
+            jdbcTemplate.execute("ALTER TABLE event_logs RENAME TO " + legacy);
+            for (String index : indexes) {
+                jdbcTemplate.execute("ALTER INDEX " + index + " RENAME TO " + legacy + "_" + index);
+            }
+
+            jdbcTemplate.execute("CREATE TABLE event_logs (LIKE " + legacy
+                    + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (\"timestamp\")");
+            jdbcTemplate.execute("ALTER TABLE event_logs DROP CONSTRAINT " + BOUND_CHECK);
+            // Unique constraints on a partitioned table must include the partition key
+            jdbcTemplate.execute("ALTER TABLE event_logs ADD PRIMARY KEY (id, \"timestamp\")");
+            for (String index : INDEXES) {
+                jdbcTemplate.execute("CREATE INDEX " + index);
+            }
+            jdbcTemplate.execute("ALTER TABLE event_logs ATTACH PARTITION " + legacy
+                    + " FOR VALUES FROM (MINVALUE) TO (" + bound(bound) + ")");
+            // Implied by the partition bound from now on
+            jdbcTemplate.execute("ALTER TABLE " + legacy + " DROP CONSTRAINT " + BOUND_CHECK);
+            createDefaultPartition();
+            log.info("Partitioned event_logs by month; existing events are in {}", legacy);
+        });
+    }
+
+    private void ensureDefaultPartition() {
+        if (!isPartitioned() || attachedPartitions().contains(DEFAULT_PARTITION)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            lockForDdl();
+            createDefaultPartition();
+        });
+    }
+
+    private void createDefaultPartition() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF event_logs DEFAULT");
+    }
+
+    private void archiveExpiredPartitions() {
+        if (retentionMonths <= 0 || !isPartitioned()) {
+            return;
+        }
+        YearMonth cutoff = YearMonth.now(ZoneOffset.UTC).minusMonths(retentionMonths);
+
+        for (String table : attachedPartitions()) {
+            if (!DEFAULT_PARTITION.equals(table) && !upperBound(table).isAfter(cutoff)) {
+                detach(table);
+            }
+        }
+        // Includes partitions detached by an earlier run whose archive failed
+        for (String table : detachedPartitions()) {
+            archiveAndDrop(table);
+        }
+    }
+
+    private void detach(String table) {
+        transactionTemplate.executeWithoutResult(status -> {
+            lockForDdl();
+            if (attachedPartitions().contains(table)) {
+                jdbcTemplate.execute("ALTER TABLE event_logs DETACH PARTITION " + table);
+                log.info("Detached expired event log partition {}", table);
+            }
+        });
+    }
+
+    private void archiveAndDrop(String table) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Boolean locked = jdbcTemplate.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(hashtextextended(?, 0))", Boolean.class, table);
+                // Another node is archiving it, or already has
+                if (!Boolean.TRUE.equals(locked) || !detachedPartitions().contains(table)) {
+                    return;
+                }
+                Instant rangeStart = table.startsWith(MONTH_PREFIX)
+                        ? monthStart(YearMonth.parse(table.substring(MONTH_PREFIX.length()), MONTH_FORMAT))
+                        : null;
+                archiveService.archive(table, rangeStart, monthStart(upperBound(table)));
+                jdbcTemplate.execute("DROP TABLE " + table);
+            });
+        } catch (Exception e) {
+            log.error("Failed to archive event log partition {}; it stays detached: {}", table, e.getMessage(), e);
+        }
+    }
+
+    private List<YearMonth> missingMonths(YearMonth first, YearMonth last) {
+        Set<String> partitions = attachedPartitions();
+        YearMonth before = partitions.stream()
+                .filter(name -> name.startsWith(BEFORE_PREFIX))
+                .map(this::upperBound)
+                .max(YearMonth::compareTo)
+                .orElse(null);
+
+        List<YearMonth> missing = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            boolean covered = (before != null && month.isBefore(before))
+                    || partitions.contains(MONTH_PREFIX + month.format(MONTH_FORMAT));
+            if (!covered) {
+                missing.add(month);
+            }
+        }
+        return missing;
+    }
+
+    // First month not covered by the partition
+    private YearMonth upperBound(String table) {
+        if (table.startsWith(BEFORE_PREFIX)) {
+            return YearMonth.parse(table.substring(BEFORE_PREFIX.length()), MONTH_FORMAT);
+        }
+        return YearMonth.parse(table.substring(MONTH_PREFIX.length()), MONTH_FORMAT).plusMonths(1);
+    }
+
+    private Set<String> attachedPartitions() {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = to_regclass('event_logs')", String.class));
+    }
+
+    private List<String> detachedPartitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_class c "
+                + "WHERE c.relkind = 'r' AND c.relnamespace = current_schema()::regnamespace "
+                + "AND c.relname ~ '^event_logs_(p|before)[0-9]{6}$' "
+                + "AND NOT EXISTS (SELECT 1 FROM pg_inherits i WHERE i.inhrelid = c.oid) "
+                + "ORDER BY c.relname", String.class);
+    }
+
+    private boolean isPartitioned() {
+        return "p".equals(relkind());
+    }
+
+    private String relkind() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('event_logs')", String.class);
+        return kinds.isEmpty() ? null : kinds.get(0);
+    }
+
+    // Serializes partition DDL across nodes for the rest of the transaction
+    private void lockForDdl() {
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(hashtextextended(?, 0))",
+                (ResultSetExtractor<Void>) rs -> null, LOCK_NAME);
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + LOCK_TIMEOUT + "'");
+    }
+
+    private static Instant monthStart(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    private static String bound(YearMonth month) {
+        return "'" + monthStart(month) + "'";
+    }
+}
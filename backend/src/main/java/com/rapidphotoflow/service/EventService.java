@@ -1,64 +1,187 @@
 package com.rapidphotoflow.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rapidphotoflow.domain.EventLog;
 import com.rapidphotoflow.domain.EventType;
+import com.rapidphotoflow.domain.PhotoStatus;
+import com.rapidphotoflow.dto.EventDTO;
+import com.rapidphotoflow.dto.EventNotificationDTO;
 import com.rapidphotoflow.entity.EventLogEntity;
 import com.rapidphotoflow.repository.EventLogRepository;
+import com.rapidphotoflow.repository.PhotoRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EventService {
 
+    public static final String EVENTS_CHANNEL = "photo_events";
+
+    // Bounds for the first page, which has no cursor
+    private static final Instant END_OF_TIME = Instant.parse("9999-12-31T00:00:00Z");
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+
+    /**
+     * One page of events and the cursor for the next, or null on the last page.
+     */
+    public record EventPage(List<EventLog> items, String nextCursor) {
+    }
+
     private final EventLogRepository eventLogRepository;
+    private final PhotoRepository photoRepository;
+    private final ClusterNotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final EventWriter eventWriter;
+    private final PipelineAnalyticsService pipelineAnalytics;
+    // Single thread keeps broadcasts in commit order
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor();
+
+    @PreDestroy
+    void shutdown() {
+        // Lets queued broadcasts go out
+        publisher.shutdown();
+    }
 
     @Transactional
-    public EventLog logEvent(UUID photoId, EventType type, String message) {
-        EventLogEntity entity = EventLogEntity.builder()
-                .photoId(photoId)
-                .eventType(type)
-                .message(message)
-                .timestamp(Instant.now())
-                .build();
+    public EventLog logEvent(UUID photoId, PhotoStatus photoStatus, UUID uploadedByUserId,
+                             EventType type, String filename) {
+        return logEvent(photoId, photoStatus, uploadedByUserId, type, filename, null);
+    }
 
-        eventLogRepository.save(entity);
-        log.debug("Event logged: {} - {} - {}", photoId, type, message);
+    /**
+     * Log an event with the parameters its type renders from (see {@link EventLog}).
+     * The filename is used for the broadcast message only and is not stored; the photo's
+     * status and uploader are broadcast for stream filters and are not stored either.
+     */
+    @Transactional
+    public EventLog logEvent(UUID photoId, PhotoStatus photoStatus, UUID uploadedByUserId,
+                             EventType type, String filename, Map<String, String> params) {
+        EventLog event = EventLog.create(photoId, photoStatus, uploadedByUserId, type, filename, params);
+        eventWriter.write(event);
+        pipelineAnalytics.record(List.of(event));
+        log.debug("Event logged: {} - {} - {}", photoId, type, params);
 
-        return entityToEventLog(entity);
+        publish(List.of(event));
+        return event;
     }
 
-    public List<EventLog> getAllEvents() {
-        return eventLogRepository.findAllByOrderByTimestampDesc().stream()
-                .map(this::entityToEventLog)
-                .collect(Collectors.toList());
+    /**
+     * Log many events with one batch and broadcast them in one statement.
+     * Events must already carry their ID and timestamp (see {@link EventLog#create}).
+     */
+    @Transactional
+    public void logEvents(List<EventLog> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        eventWriter.write(events);
+        pipelineAnalytics.record(events);
+        log.debug("Logged {} events in batch", events.size());
+
+        publish(events);
     }
 
-    public List<EventLog> getEventsByPhotoId(UUID photoId) {
-        return eventLogRepository.findByPhotoIdOrderByTimestampDesc(photoId).stream()
-                .map(this::entityToEventLog)
-                .collect(Collectors.toList());
+    /**
+     * A page of events, newest first, optionally for one photo or one type (photo wins when
+     * both are given). Pages are keyset-paginated on (timestamp, id): pass the returned
+     * cursor to get the next page; it is null on the last page.
+     */
+    public EventPage getEvents(UUID photoId, EventType type, String cursor, int limit) {
+        Instant beforeTimestamp = END_OF_TIME;
+        UUID beforeId = MAX_ID;
+        if (cursor != null && !cursor.isBlank()) {
+            int separator = cursor.indexOf('_');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            try {
+                long micros = Long.parseLong(cursor.substring(0, separator));
+                beforeTimestamp = Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+                beforeId = UUID.fromString(cursor.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+        }
+
+        // One extra row tells whether another page follows
+        Pageable page = PageRequest.of(0, limit + 1);
+        List<EventLogEntity> rows;
+        if (photoId != null) {
+            rows = eventLogRepository.findPageByPhotoId(photoId, beforeTimestamp, beforeId, page);
+        } else if (type != null) {
+            rows = eventLogRepository.findPageByEventType(type, beforeTimestamp, beforeId, page);
+        } else {
+            rows = eventLogRepository.findPage(beforeTimestamp, beforeId, page);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            EventLogEntity last = rows.get(limit - 1);
+            nextCursor = ChronoUnit.MICROS.between(Instant.EPOCH, last.getTimestamp()) + "_" + last.getId();
+        }
+        return new EventPage(rows.stream().map(this::entityToEventLog).toList(), nextCursor);
     }
 
-    public List<EventLog> getEventsByType(EventType type) {
-        return eventLogRepository.findByEventTypeOrderByTimestampDesc(type).stream()
-                .map(this::entityToEventLog)
-                .collect(Collectors.toList());
+    /**
+     * Fill in the filenames events render with: from the photo, or for deleted photos from
+     * their DELETED event. Only needed when messages are rendered.
+     */
+    public void resolveFilenames(List<EventLog> events) {
+        Map<UUID, String> filenames = new HashMap<>();
+        for (EventLog event : events) {
+            if (event.getParam(EventLog.FILENAME) != null) {
+                filenames.put(event.getPhotoId(), event.getParam(EventLog.FILENAME));
+            }
+        }
+        Set<UUID> unresolved = new HashSet<>();
+        for (EventLog event : events) {
+            if (event.getFilename() == null && event.getMessage() == null && !filenames.containsKey(event.getPhotoId())) {
+                unresolved.add(event.getPhotoId());
+            }
+        }
+        if (!unresolved.isEmpty()) {
+            for (Object[] row : photoRepository.findFilenamesByIds(unresolved)) {
+                filenames.put((UUID) row[0], (String) row[1]);
+            }
+            unresolved.removeAll(filenames.keySet());
+        }
+        if (!unresolved.isEmpty()) {
+            for (EventLogEntity deleted : eventLogRepository.findByPhotoIdInAndEventType(unresolved, EventType.DELETED)) {
+                if (deleted.getParams() != null && deleted.getParams().get(EventLog.FILENAME) != null) {
+                    filenames.put(deleted.getPhotoId(), deleted.getParams().get(EventLog.FILENAME));
+                }
+            }
+        }
+        for (EventLog event : events) {
+            if (event.getFilename() == null) {
+                event.setFilename(filenames.get(event.getPhotoId()));
+            }
+        }
     }
 
     public List<EventLog> getRecentEvents(int limit) {
-        return eventLogRepository.findAllByOrderByTimestampDesc().stream()
-                .limit(limit)
-                .map(this::entityToEventLog)
-                .collect(Collectors.toList());
+        return getEvents(null, null, null, limit).items();
     }
 
     @Transactional
@@ -66,11 +189,39 @@ public class EventService {
         eventLogRepository.deleteByPhotoId(photoId);
     }
 
+    // Broadcast to stream subscribers on every node once the transaction commits. NOTIFY is
+    // sent from the publisher thread, so the writing transaction makes no extra round trip
+    private void publish(List<EventLog> events) {
+        List<String> payloads = new ArrayList<>(events.size());
+        for (EventLog event : events) {
+            try {
+                payloads.add(objectMapper.writeValueAsString(EventNotificationDTO.builder()
+                        .event(EventDTO.fromEntity(event))
+                        .status(event.getPhotoStatus())
+                        .uploadedByUserId(event.getUploadedByUserId())
+                        .build()));
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialize event {} for broadcast", event.getId(), e);
+            }
+        }
+        if (payloads.isEmpty()) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> publisher.execute(() -> {
+            try {
+                notificationService.publishAll(EVENTS_CHANNEL, payloads);
+            } catch (RuntimeException e) {
+                log.error("Failed to broadcast {} events: {}", payloads.size(), e.getMessage());
+            }
+        }));
+    }
+
     private EventLog entityToEventLog(EventLogEntity entity) {
         return EventLog.builder()
                 .id(entity.getId())
                 .photoId(entity.getPhotoId())
                 .type(entity.getEventType())
+                .params(entity.getParams())
                 .message(entity.getMessage())
                 .timestamp(entity.getTimestamp())
                 .build();
@@ -0,0 +1,312 @@
+package com.rapidphotoflow.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidphotoflow.domain.EventLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists event log rows with a configurable durability trade-off.
+ * <ul>
+ *   <li>sync: one insert per call, in the caller's transaction.</li>
+ *   <li>transactional: events logged in a transaction are buffered and written with one
+ *       batch just before it commits, so they stay atomic with the change they describe.</li>
+ *   <li>async: write-behind. Events are queued after the caller commits and flushed by a
+ *       background thread in batches, by size or after the flush interval. Events still
+ *       queued are lost if the node dies.</li>
+ * </ul>
+ * In async mode a full buffer applies backpressure: producers wait for space and then
+ * write the events themselves, or drop them when the overflow policy says so.
+ */
+@Component
+@Slf4j
+public class EventWriter {
+
+    public enum Mode {
+        SYNC,
+        TRANSACTIONAL,
+        ASYNC
+    }
+
+    public enum Overflow {
+        // Wait for space, then write on the caller's thread
+        BLOCK,
+        // Discard and count
+        DROP
+    }
+
+    // Idempotent so a retried flush never duplicates rows. No conflict target: the key is
+    // (id, timestamp) once the table is partitioned and just id before
+    private static final String INSERT_SQL = "INSERT INTO event_logs (id, photo_id, event_type, params, timestamp) "
+            + "VALUES (?, ?, ?, ?::jsonb, ?) ON CONFLICT DO NOTHING";
+    private static final long RETRY_BACKOFF_MS = 100;
+
+    private record Pending(EventLog event, long enqueuedAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Mode mode;
+    private final Overflow overflow;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMs;
+    private final int maxRetries;
+    private final long shutdownTimeoutMs;
+    private final BlockingQueue<Pending> queue;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    private final Timer flushTimer;
+    private final Timer delayTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter overflowed;
+    private final Counter dropped;
+
+    public EventWriter(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${events.write.mode:transactional}") String mode,
+            @Value("${events.write.overflow:block}") String overflow,
+            @Value("${events.write.buffer-size:10000}") int bufferSize,
+            @Value("${events.write.batch-size:500}") int batchSize,
+            @Value("${events.write.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${events.write.offer-timeout-ms:1000}") long offerTimeoutMs,
+            @Value("${events.write.max-retries:3}") int maxRetries,
+            @Value("${events.write.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        // Writes from afterCommit callbacks need a transaction of their own
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.mode = Mode.valueOf(mode.trim().toUpperCase());
+        this.overflow = Overflow.valueOf(overflow.trim().toUpperCase());
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.maxRetries = maxRetries;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(bufferSize);
+
+        Gauge.builder("events.write.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        this.flushTimer = Timer.builder("events.write.flush.latency").register(meterRegistry);
+        this.delayTimer = Timer.builder("events.write.delay")
+                .description("Time from enqueue until the event is persisted")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("events.write.batch.size").register(meterRegistry);
+        this.overflowed = Counter.builder("events.write.overflowed").register(meterRegistry);
+        this.dropped = Counter.builder("events.write.dropped").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        log.info("Event write mode {}", mode);
+        if (mode != Mode.ASYNC) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "event-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        // The flusher drains what is queued before exiting
+        running = false;
+        flusher.join(shutdownTimeoutMs);
+        if (!queue.isEmpty()) {
+            log.warn("Event writer stopped with {} events unwritten", queue.size());
+        }
+    }
+
+    public void write(EventLog event) {
+        write(List.of(event));
+    }
+
+    public void write(List<EventLog> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        switch (mode) {
+            case SYNC -> insert(events);
+            case TRANSACTIONAL -> writeBeforeCommit(events);
+            case ASYNC -> TransactionCallbacks.afterCommit(() -> enqueue(events));
+        }
+    }
+
+    private void writeBeforeCommit(List<EventLog> events) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(events);
+            return;
+        }
+        // Synchronizations are suspended with their transaction, so an inner REQUIRES_NEW
+        // transaction gets a buffer of its own
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof CommitBuffer buffer && buffer.owner() == this) {
+                buffer.events.addAll(events);
+                return;
+            }
+        }
+        CommitBuffer buffer = new CommitBuffer();
+        buffer.events.addAll(events);
+        TransactionSynchronizationManager.registerSynchronization(buffer);
+    }
+
+    private void enqueue(List<EventLog> events) {
+        if (!running) {
+            insertNow(events);
+            return;
+        }
+        long now = System.nanoTime();
+        List<EventLog> rejected = new ArrayList<>();
+        for (EventLog event : events) {
+            Pending pending = new Pending(event, now);
+            if (queue.offer(pending)) {
+                continue;
+            }
+            if (overflow == Overflow.DROP) {
+                dropped.increment();
+                continue;
+            }
+            try {
+                if (!queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    rejected.add(event);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.add(event);
+            }
+        }
+        if (!rejected.isEmpty()) {
+            // Still full after waiting: the caller pays for the write rather than losing events
+            overflowed.increment(rejected.size());
+            insertNow(rejected);
+        }
+    }
+
+    private final class CommitBuffer implements TransactionSynchronization {
+        private final List<EventLog> events = new ArrayList<>();
+
+        private EventWriter owner() {
+            return EventWriter.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            insert(events);
+        }
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Linger for more events until the batch fills or the interval elapses
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Event writer failed: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) throws InterruptedException {
+        List<EventLog> events = batch.stream().map(Pending::event).toList();
+        for (int attempt = 0; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                insertNow(events);
+                long end = System.nanoTime();
+                flushTimer.record(end - start, TimeUnit.NANOSECONDS);
+                batchSizes.record(events.size());
+                batch.forEach(pending -> delayTimer.record(end - pending.enqueuedAt(), TimeUnit.NANOSECONDS));
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxRetries) {
+                    dropped.increment(events.size());
+                    log.error("Dropping {} events after {} failed flushes: {}", events.size(), attempt + 1, e.getMessage());
+                    return;
+                }
+                log.warn("Event flush failed, retrying: {}", e.getMessage());
+                Thread.sleep(RETRY_BACKOFF_MS << attempt);
+            }
+        }
+    }
+
+    private void insertNow(List<EventLog> events) {
+        transactionTemplate.executeWithoutResult(status -> insert(events));
+    }
+
+    private void insert(List<EventLog> events) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, batchSize, (statement, event) -> {
+            statement.setObject(1, event.getId());
+            statement.setObject(2, event.getPhotoId());
+            statement.setString(3, event.getType().name());
+            statement.setString(4, paramsJson(event));
+            statement.setTimestamp(5, Timestamp.from(event.getTimestamp()));
+        });
+    }
+
+    private String paramsJson(EventLog event) {
+        if (event.getParams() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(event.getParams());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unserializable params on event " + event.getId(), e);
+        }
+    }
+}
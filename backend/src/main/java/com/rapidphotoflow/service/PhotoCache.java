@@ -0,0 +1,181 @@
+package com.rapidphotoflow.service;
+
+import com.rapidphotoflow.domain.Photo;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU read-through cache of photo metadata for single-photo lookups.
+ * Cached instances are shared between callers and must be treated as read-only.
+ * Invalidations are applied locally and broadcast to other nodes after commit.
+ */
+@Component
+@Slf4j
+public class PhotoCache {
+
+    private static final String CHANNEL = "photo_cache_invalidation";
+    private static final String ALL = "*";
+    private static final String UPLOADER_PREFIX = "uploader:";
+
+    private final ClusterNotificationService notificationService;
+    private final Map<UUID, Photo> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private long generation;
+
+    public PhotoCache(
+            ClusterNotificationService notificationService,
+            MeterRegistry meterRegistry,
+            @Value("${cache.photos.max-size:10000}") int maxSize) {
+        this.notificationService = notificationService;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Photo> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        notificationService.subscribe(CHANNEL, this::onNotification);
+
+        FunctionCounter.builder("photo.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("photo.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("photo.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("photo.cache.size", this, PhotoCache::size).register(meterRegistry);
+        Gauge.builder("photo.cache.hit.ratio", this, PhotoCache::hitRatio).register(meterRegistry);
+    }
+
+    /**
+     * Return the cached photo, loading and caching it on a miss. Absent photos are not cached.
+     */
+    public Optional<Photo> get(UUID photoId, Function<UUID, Optional<Photo>> loader) {
+        long loadGeneration;
+        synchronized (cache) {
+            Photo cached = cache.get(photoId);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            loadGeneration = generation;
+        }
+
+        misses.increment();
+        Optional<Photo> loaded = loader.apply(photoId);
+
+        loaded.ifPresent(photo -> {
+            synchronized (cache) {
+                if (generation == loadGeneration) {
+                    cache.put(photoId, photo);
+                }
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Invalidate a photo on this node now and on every node once the current transaction commits.
+     */
+    public void invalidate(UUID photoId) {
+        evict(photoId);
+        notificationService.publish(CHANNEL, photoId.toString());
+        TransactionCallbacks.afterCommit(() -> evict(photoId));
+    }
+
+    /**
+     * Invalidate many photos at once, with a single broadcast.
+     */
+    public void invalidate(Collection<UUID> photoIds) {
+        List<UUID> snapshot = List.copyOf(photoIds);
+        snapshot.forEach(this::evict);
+        notificationService.publishAll(CHANNEL, snapshot.stream().map(UUID::toString).toList());
+        TransactionCallbacks.afterCommit(() -> snapshot.forEach(this::evict));
+    }
+
+    /**
+     * Invalidate the cached photos uploaded by one user on all nodes, e.g. after their username changes.
+     */
+    public void invalidateUploader(UUID userId) {
+        evictUploader(userId);
+        notificationService.publish(CHANNEL, UPLOADER_PREFIX + userId);
+        TransactionCallbacks.afterCommit(() -> evictUploader(userId));
+    }
+
+    /**
+     * Invalidate every cached photo on all nodes.
+     */
+    public void invalidateAll() {
+        clear();
+        notificationService.publish(CHANNEL, ALL);
+        TransactionCallbacks.afterCommit(this::clear);
+    }
+
+    private void onNotification(String payload) {
+        // A null payload means notifications may have been missed
+        if (payload == null || ALL.equals(payload)) {
+            clear();
+            return;
+        }
+        try {
+            if (payload.startsWith(UPLOADER_PREFIX)) {
+                evictUploader(UUID.fromString(payload.substring(UPLOADER_PREFIX.length())));
+            } else {
+                evict(UUID.fromString(payload));
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed photo cache invalidation: {}", payload);
+        }
+    }
+
+    private void evict(UUID photoId) {
+        synchronized (cache) {
+            cache.remove(photoId);
+            generation++;
+        }
+    }
+
+    private void evictUploader(UUID userId) {
+        synchronized (cache) {
+            cache.values().removeIf(photo -> userId.equals(photo.getUploadedByUserId()));
+            generation++;
+        }
+    }
+
+    private void clear() {
+        synchronized (cache) {
+            cache.clear();
+            generation++;
+        }
+    }
+
+    private int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+}
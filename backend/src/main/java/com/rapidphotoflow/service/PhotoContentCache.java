@@ -0,0 +1,380 @@
+package com.rapidphotoflow.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local disk tier in front of S3 for photo content, keyed by content hash
+ * (suffixed with the variant for resized derivatives).
+ * Stored bytes never change for a given hash, so entries need no invalidation and
+ * duplicate uploads share one file. The directory is bounded by a byte budget with
+ * LRU eviction, and concurrent misses for the same hash share a single S3 fetch.
+ * Range requests never wait for a whole object: on a miss the range is read from S3 by the
+ * caller while the cache is filled in the background.
+ */
+@Component
+@Slf4j
+public class PhotoContentCache {
+
+    /**
+     * Supplies the full object from the backing store, or null if it does not exist.
+     */
+    @FunctionalInterface
+    public interface ContentLoader {
+        InputStream open() throws IOException;
+    }
+
+    private static final Pattern VALID_KEY = Pattern.compile("[0-9a-fA-F]{16,128}(-[0-9a-z]+)*");
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxBytes;
+
+    // Content hash to file size, in access order
+    private final Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> backgroundFills = ConcurrentHashMap.newKeySet();
+    private final ExecutorService fillPool;
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    public PhotoContentCache(
+            MeterRegistry meterRegistry,
+            @Value("${content.cache.enabled:true}") boolean enabled,
+            @Value("${content.cache.directory:${java.io.tmpdir}/rapidphotoflow-content}") String directory,
+            @Value("${content.cache.max-bytes:2147483648}") long maxBytes,
+            @Value("${content.cache.fill-threads:4}") int fillThreads) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.maxBytes = maxBytes;
+        this.fillPool = Executors.newFixedThreadPool(fillThreads);
+
+        FunctionCounter.builder("content.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("content.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("content.cache.coalesced", coalesced, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("content.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("content.cache.bytes.served", bytesServed, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("content.not.modified", notModified, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("content.cache.size.bytes", this, PhotoContentCache::sizeBytes).register(meterRegistry);
+        Gauge.builder("content.cache.hit.ratio", this, PhotoContentCache::hitRatio).register(meterRegistry);
+    }
+
+    /**
+     * Create the cache directory and index whatever a previous run left in it,
+     * oldest first so recently written files survive the initial trim.
+     */
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            log.info("Photo content disk cache disabled");
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(Files::isRegularFile).toList();
+            }
+
+            record Existing(Path path, long size, long modified) {
+            }
+            List<Existing> existing = new ArrayList<>();
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX) || !VALID_KEY.matcher(name).matches()) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                existing.add(new Existing(file, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+            }
+            existing.sort(Comparator.comparingLong(Existing::modified));
+
+            List<String> evicted;
+            synchronized (entries) {
+                for (Existing file : existing) {
+                    entries.put(file.path().getFileName().toString(), file.size());
+                    totalBytes += file.size();
+                }
+                evicted = evictToBudget(null);
+            }
+            deleteFiles(evicted);
+            log.info("Photo content disk cache at {} holding {} files ({} bytes, budget {})",
+                    directory, existing.size(), totalBytes, maxBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to initialize content cache at " + directory, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fillPool.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Count a conditional request answered with 304 from the client's own cache.
+     */
+    public void recordNotModified() {
+        notModified.increment();
+    }
+
+    /**
+     * Open cached content for the given hash, fetching it through the loader on a miss.
+     * Returns null if the loader reports the object missing. A range that cannot be
+     * satisfied throws IllegalArgumentException.
+     */
+    public PhotoContentStream open(String contentHash, String range, ContentLoader loader) throws IOException {
+        if (!VALID_KEY.matcher(contentHash).matches()) {
+            throw new IllegalStateException("Unsupported content cache key: " + contentHash);
+        }
+
+        // An entry can be evicted between lookup and open; fetch again in that case
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Path path = resolve(contentHash, loader);
+            if (path == null) {
+                return null;
+            }
+            try {
+                return openRange(FileChannel.open(path, StandardOpenOption.READ), range);
+            } catch (NoSuchFileException e) {
+                forget(contentHash);
+            }
+        }
+        throw new IOException("Cached content for " + contentHash + " kept disappearing");
+    }
+
+    /**
+     * Open a range of cached content, or return null on a miss. A miss starts filling the
+     * cache in the background, so the caller can serve the range from the backing store
+     * without waiting for the whole object.
+     */
+    public PhotoContentStream openRangeIfCached(String contentHash, String range, ContentLoader loader) throws IOException {
+        if (!VALID_KEY.matcher(contentHash).matches()) {
+            throw new IllegalStateException("Unsupported content cache key: " + contentHash);
+        }
+
+        boolean cached;
+        synchronized (entries) {
+            cached = entries.get(contentHash) != null;
+        }
+        if (cached) {
+            try {
+                PhotoContentStream stream = openRange(
+                        FileChannel.open(directory.resolve(contentHash), StandardOpenOption.READ), range);
+                hits.increment();
+                return stream;
+            } catch (NoSuchFileException e) {
+                forget(contentHash);
+            }
+        }
+
+        // Concurrent misses share one fill, whether it is queued or running
+        if (!inFlight.containsKey(contentHash) && backgroundFills.add(contentHash)) {
+            String key = contentHash;
+            try {
+                fillPool.execute(() -> {
+                    try {
+                        resolve(key, loader);
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("Background fill of content {} failed: {}", key, e.getMessage());
+                    } finally {
+                        backgroundFills.remove(key);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                backgroundFills.remove(key);
+            }
+        }
+        return null;
+    }
+
+    private Path resolve(String key, ContentLoader loader) throws IOException {
+        synchronized (entries) {
+            if (entries.get(key) != null) {
+                hits.increment();
+                return directory.resolve(key);
+            }
+        }
+
+        CompletableFuture<Path> fetch = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(key, fetch);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        try {
+            // Another fetch may have finished between the lookup and registering ours
+            synchronized (entries) {
+                if (entries.get(key) != null) {
+                    hits.increment();
+                    fetch.complete(directory.resolve(key));
+                    return directory.resolve(key);
+                }
+            }
+            misses.increment();
+            Path path = fetch(key, loader);
+            fetch.complete(path);
+            return path;
+        } catch (IOException | RuntimeException e) {
+            fetch.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, fetch);
+        }
+    }
+
+    private Path fetch(String key, ContentLoader loader) throws IOException {
+        Path temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+        try {
+            try (InputStream in = loader.open()) {
+                if (in == null) {
+                    return null;
+                }
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            long size = Files.size(temp);
+            Path path = directory.resolve(key);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            List<String> evicted;
+            synchronized (entries) {
+                Long previous = entries.put(key, size);
+                totalBytes += size - (previous != null ? previous : 0);
+                evicted = evictToBudget(key);
+            }
+            deleteFiles(evicted);
+            return path;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private PhotoContentStream openRange(FileChannel channel, String range) throws IOException {
+        try {
+            long totalLength = channel.size();
+            if (range == null) {
+                bytesServed.add(totalLength);
+                return PhotoContentStream.ofFile(channel, 0, totalLength, totalLength, null);
+            }
+
+            HttpRange httpRange = HttpRange.parseRanges(range).get(0);
+            long start = httpRange.getRangeStart(totalLength);
+            long end = httpRange.getRangeEnd(totalLength);
+            long length = end - start + 1;
+            bytesServed.add(length);
+            return PhotoContentStream.ofFile(channel, start, length, totalLength,
+                    "bytes " + start + "-" + end + "/" + totalLength);
+        } catch (RuntimeException e) {
+            channel.close();
+            throw e instanceof IllegalArgumentException ? e : new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private Path await(CompletableFuture<Path> fetch) throws IOException {
+        try {
+            return fetch.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    private void forget(String key) {
+        synchronized (entries) {
+            Long size = entries.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+    }
+
+    // Caller holds the entries lock and deletes the returned files after releasing it.
+    // Files still open by readers stay readable after deletion.
+    private List<String> evictToBudget(String keep) {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            evictions.increment();
+            evicted.add(eldest.getKey());
+        }
+        return evicted;
+    }
+
+    // A key fetched again in the meantime may lose its new file; open() then fetches it once more
+    private void deleteFiles(List<String> keys) {
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(directory.resolve(key));
+            } catch (IOException e) {
+                log.warn("Failed to delete evicted content file {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    private long sizeBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    private double hitRatio() {
+        long hitCount = hits.sum() + coalesced.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,96 @@
+package com.rapidphotoflow.service;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Open handle on stored photo bytes, possibly a sub-range of the object, backed either
+ * by a remote stream or by a local file. The caller must either transfer or close it.
+ */
+@Getter
+public final class PhotoContentStream implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream stream;
+    private final FileChannel channel;
+    private final long position;
+    // Number of bytes that will be sent
+    private final long contentLength;
+    // Size of the whole object
+    private final long totalLength;
+    // Value for the Content-Range header, or null for a full response
+    private final String contentRange;
+
+    private PhotoContentStream(InputStream stream, FileChannel channel, long position,
+                               long contentLength, long totalLength, String contentRange) {
+        this.stream = stream;
+        this.channel = channel;
+        this.position = position;
+        this.contentLength = contentLength;
+        this.totalLength = totalLength;
+        this.contentRange = contentRange;
+    }
+
+    public static PhotoContentStream ofStream(InputStream stream, long contentLength, long totalLength,
+                                              String contentRange) {
+        return new PhotoContentStream(stream, null, 0, contentLength, totalLength, contentRange);
+    }
+
+    public static PhotoContentStream ofFile(FileChannel channel, long position, long contentLength,
+                                            long totalLength, String contentRange) {
+        return new PhotoContentStream(null, channel, position, contentLength, totalLength, contentRange);
+    }
+
+    public boolean isPartial() {
+        return contentRange != null;
+    }
+
+    /**
+     * The content as a plain stream, for handles over a whole object. Closing it closes this handle.
+     */
+    public InputStream asInputStream() throws IOException {
+        return channel != null ? Channels.newInputStream(channel.position(position)) : stream;
+    }
+
+    /**
+     * Copy the content to the output, then close it. Files are sent with
+     * FileChannel.transferTo; streams are copied with a fixed-size buffer.
+     */
+    public void transferTo(OutputStream out) throws IOException {
+        try (this) {
+            if (channel != null) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long sent = 0;
+                while (sent < contentLength) {
+                    long transferred = channel.transferTo(position + sent, contentLength - sent, target);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    sent += transferred;
+                }
+            } else {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = stream.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        } else {
+            stream.close();
+        }
+    }
+}
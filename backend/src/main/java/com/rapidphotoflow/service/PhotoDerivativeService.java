@@ -0,0 +1,359 @@
+package com.rapidphotoflow.service;
+
+import com.rapidphotoflow.domain.Photo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Resized and format-converted copies of photos, rendered on demand.
+ * Derivatives are content-addressed (content hash plus variant), stored in S3 under
+ * derivatives/ so every node shares them, and cached on local disk like originals.
+ * Concurrent misses for a variant on one node share a single render. Nodes do not
+ * coordinate: a cross-node lock would hold a database connection for the whole render,
+ * while the rare duplicate render just stores identical bytes under the same key.
+ * Only a fixed set of sizes is rendered, so the variants stored per photo are bounded. They are
+ * removed from S3 along with the last photo sharing their content (see {@link #deleteDerivatives}).
+ * The render pool is bounded, and decoding is subsampled so memory scales with the
+ * output size rather than the original.
+ */
+@Service
+@Slf4j
+public class PhotoDerivativeService {
+
+    public enum Fit {
+        // Scale to fit inside the box, keeping the aspect ratio
+        CONTAIN,
+        // Scale to fill the box, cropping the overflow around the centre
+        COVER
+    }
+
+    /**
+     * Requested variant. Null width or height leaves that side unconstrained;
+     * images are never upscaled.
+     */
+    public record Variant(Integer width, Integer height, Fit fit, String format) {
+
+        String key() {
+            return "w" + (width != null ? width : 0)
+                    + "-h" + (height != null ? height : 0)
+                    + "-" + fit.name().toLowerCase()
+                    + "-" + format;
+        }
+
+        public String mimeType() {
+            return "image/" + format;
+        }
+    }
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final S3StorageService s3StorageService;
+    private final PhotoContentCache contentCache;
+    // The only widths and heights rendered, so each photo has a bounded set of variants
+    private final SortedSet<Integer> sizes;
+    private final long maxDecodedPixels;
+    private final long renderTimeoutMs;
+    private final ThreadPoolExecutor renderPool;
+    // Renders in progress on this node by derivative name
+    private final Map<String, FutureTask<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final Timer renderTimer;
+    private final Counter rejected;
+
+    public PhotoDerivativeService(
+            S3StorageService s3StorageService,
+            PhotoContentCache contentCache,
+            MeterRegistry meterRegistry,
+            @Value("${content.derivatives.threads:0}") int threads,
+            @Value("${content.derivatives.queue-size:64}") int queueSize,
+            @Value("${content.derivatives.sizes:64,128,256,512,1024,2048}") List<Integer> sizes,
+            @Value("${content.derivatives.max-decoded-pixels:40000000}") long maxDecodedPixels,
+            @Value("${content.derivatives.render-timeout-ms:30000}") long renderTimeoutMs) {
+        this.s3StorageService = s3StorageService;
+        this.contentCache = contentCache;
+        this.sizes = new TreeSet<>(sizes);
+        this.maxDecodedPixels = maxDecodedPixels;
+        this.renderTimeoutMs = renderTimeoutMs;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.renderPool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize));
+
+        this.renderTimer = Timer.builder("content.derivatives.render").register(meterRegistry);
+        this.rejected = Counter.builder("content.derivatives.rejected").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    /**
+     * Build a variant from request parameters, defaulting the format to the original's
+     * (PNG stays PNG, everything else becomes JPEG). Widths and heights must be one of the
+     * configured sizes. Invalid values throw IllegalArgumentException.
+     */
+    public Variant parseVariant(Integer width, Integer height, String fit, String format, String originalMimeType) {
+        if (width != null && !sizes.contains(width)) {
+            throw new IllegalArgumentException("w must be one of " + sizes);
+        }
+        if (height != null && !sizes.contains(height)) {
+            throw new IllegalArgumentException("h must be one of " + sizes);
+        }
+
+        Fit parsedFit = fit != null ? Fit.valueOf(fit.trim().toUpperCase()) : Fit.CONTAIN;
+
+        String parsedFormat = format != null
+                ? format.trim().toLowerCase()
+                : ("image/png".equals(originalMimeType) ? "png" : "jpeg");
+        if ("jpg".equals(parsedFormat)) {
+            parsedFormat = "jpeg";
+        }
+        if (!"jpeg".equals(parsedFormat) && !"png".equals(parsedFormat)) {
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+
+        return new Variant(width, height, parsedFit, parsedFormat);
+    }
+
+    /**
+     * Remove the stored variants of content no photo refers to any more.
+     */
+    public void deleteDerivatives(Collection<String> contentKeys) {
+        contentKeys.forEach(s3StorageService::deleteDerivatives);
+    }
+
+    /**
+     * Identifies a rendered variant; it changes only if the original bytes or the variant do.
+     */
+    public String derivativeKey(Photo photo, Variant variant) {
+        return photo.getContentKey() + "-" + variant.key();
+    }
+
+    /**
+     * Open the rendered variant, or return null if the original does not exist.
+     * Throws RejectedExecutionException when the render pool is saturated.
+     */
+    public PhotoContentStream open(Photo photo, Variant variant) throws IOException {
+        String name = derivativeKey(photo, variant);
+
+        if (contentCache.isEnabled()) {
+            return contentCache.open(name, null, () -> {
+                byte[] rendered = loadOrRender(photo, variant, name);
+                return rendered != null ? new ByteArrayInputStream(rendered) : null;
+            });
+        }
+
+        byte[] rendered = loadOrRender(photo, variant, name);
+        return rendered != null
+                ? PhotoContentStream.ofStream(new ByteArrayInputStream(rendered), rendered.length, rendered.length, null)
+                : null;
+    }
+
+    private byte[] loadOrRender(Photo photo, Variant variant, String name) throws IOException {
+        byte[] stored = s3StorageService.downloadDerivative(name);
+        if (stored != null) {
+            return stored;
+        }
+
+        FutureTask<byte[]> task = inFlight.get(name);
+        if (task == null) {
+            FutureTask<byte[]> render = new FutureTask<>(() -> renderAndStore(photo, variant, name));
+            task = inFlight.putIfAbsent(name, render);
+            if (task == null) {
+                task = render;
+                try {
+                    renderPool.execute(() -> {
+                        try {
+                            render.run();
+                        } finally {
+                            inFlight.remove(name, render);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    inFlight.remove(name, render);
+                    // Releases requests that joined this render in the meantime
+                    render.cancel(false);
+                    rejected.increment();
+                    throw e;
+                }
+            }
+        }
+
+        try {
+            return task.get(renderTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (CancellationException e) {
+            rejected.increment();
+            throw new RejectedExecutionException("Render pool saturated", e);
+        } catch (TimeoutException e) {
+            // Not cancelled: other requests may be waiting for it, and interrupting does
+            // not stop image decoding anyway. Later requests for the variant join it
+            throw new IOException("Timed out rendering " + name, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted rendering " + name, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException("Failed to render " + name, e.getCause());
+        }
+    }
+
+    private byte[] renderAndStore(Photo photo, Variant variant, String name) {
+        try (PhotoContentStream original = openOriginal(photo)) {
+            if (original == null) {
+                return null;
+            }
+            byte[] rendered = renderTimer.recordCallable(() -> render(original.asInputStream(), variant));
+            s3StorageService.uploadDerivative(name, rendered, variant.mimeType());
+            log.debug("Rendered derivative {} ({} bytes)", name, rendered.length);
+            return rendered;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to render " + name, e);
+        }
+    }
+
+    private PhotoContentStream openOriginal(Photo photo) throws IOException {
+        if (contentCache.isEnabled()) {
+            return contentCache.open(photo.getContentKey(), null,
+                    () -> s3StorageService.openPhotoStream(photo.getId()));
+        }
+        return s3StorageService.openPhoto(photo.getId(), null);
+    }
+
+    private byte[] render(InputStream original, Variant variant) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+
+                double scale = scaleFor(sourceWidth, sourceHeight, variant);
+                int scaledWidth = Math.max(1, (int) Math.round(sourceWidth * scale));
+                int scaledHeight = Math.max(1, (int) Math.round(sourceHeight * scale));
+                int outputWidth = variant.fit() == Fit.COVER && variant.width() != null
+                        ? Math.min(variant.width(), scaledWidth) : scaledWidth;
+                int outputHeight = variant.fit() == Fit.COVER && variant.height() != null
+                        ? Math.min(variant.height(), scaledHeight) : scaledHeight;
+
+                // Decode at no less than twice the target size, then smooth-scale the rest
+                int subsampling = Math.max(1, (int) (1 / (2 * scale)));
+                long decodedPixels = (long) (sourceWidth / subsampling) * (sourceHeight / subsampling);
+                if (decodedPixels > maxDecodedPixels) {
+                    throw new IllegalArgumentException("Image too large to convert at this size");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+
+                boolean alpha = "png".equals(variant.format());
+                BufferedImage output = new BufferedImage(outputWidth, outputHeight,
+                        alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+                Graphics2D graphics = output.createGraphics();
+                try {
+                    graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                    if (!alpha) {
+                        graphics.setColor(Color.WHITE);
+                        graphics.fillRect(0, 0, outputWidth, outputHeight);
+                    }
+                    graphics.drawImage(decoded,
+                            -(scaledWidth - outputWidth) / 2, -(scaledHeight - outputHeight) / 2,
+                            scaledWidth, scaledHeight, null);
+                } finally {
+                    graphics.dispose();
+                }
+                return encode(output, variant.format());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private double scaleFor(int sourceWidth, int sourceHeight, Variant variant) {
+        double widthScale = variant.width() != null ? (double) variant.width() / sourceWidth : Double.NaN;
+        double heightScale = variant.height() != null ? (double) variant.height() / sourceHeight : Double.NaN;
+
+        double scale;
+        if (Double.isNaN(widthScale) && Double.isNaN(heightScale)) {
+            scale = 1.0;
+        } else if (Double.isNaN(widthScale)) {
+            scale = heightScale;
+        } else if (Double.isNaN(heightScale)) {
+            scale = widthScale;
+        } else {
+            scale = variant.fit() == Fit.COVER
+                    ? Math.max(widthScale, heightScale)
+                    : Math.min(widthScale, heightScale);
+        }
+        return Math.min(scale, 1.0);
+    }
+
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(buffer)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpeg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,221 @@
+package com.rapidphotoflow.service;
+
+import com.rapidphotoflow.dto.ExportRequest;
+import com.rapidphotoflow.repository.PhotoRepository;
+import com.rapidphotoflow.repository.PhotoSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams ZIP archives of photos straight to the client.
+ * Objects are prefetched from S3 a bounded window ahead into temporary files (which also
+ * yields the CRC that STORED entries need up front) and written in order, so memory stays
+ * constant and disk use is bounded by the window however large the export is.
+ */
+@Service
+@Slf4j
+public class PhotoExportService {
+
+    // Already-compressed formats gain nothing from deflate
+    private static final Set<String> STORED_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/webp");
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    private record Prefetched(PhotoSummary photo, Path file, long size, long crc) {
+    }
+
+    private final PhotoRepository photoRepository;
+    private final S3StorageService s3StorageService;
+    private final int prefetchWindow;
+    private final ExecutorService prefetchPool;
+
+    private final Counter photosExported;
+    private final Counter bytesExported;
+
+    public PhotoExportService(
+            PhotoRepository photoRepository,
+            S3StorageService s3StorageService,
+            MeterRegistry meterRegistry,
+            @Value("${export.prefetch-threads:8}") int prefetchThreads,
+            @Value("${export.prefetch-window:8}") int prefetchWindow) {
+        this.photoRepository = photoRepository;
+        this.s3StorageService = s3StorageService;
+        this.prefetchWindow = prefetchWindow;
+        this.prefetchPool = Executors.newFixedThreadPool(prefetchThreads);
+
+        this.photosExported = Counter.builder("export.photos").register(meterRegistry);
+        this.bytesExported = Counter.builder("export.bytes").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        prefetchPool.shutdownNow();
+    }
+
+    /**
+     * Photos selected by the request: the given IDs in request order (unknown IDs skipped),
+     * or every photo matching the status and tag filters, newest first.
+     */
+    @Transactional(readOnly = true)
+    public List<PhotoSummary> resolve(ExportRequest request) {
+        if (request.getIds() == null || request.getIds().isEmpty()) {
+            String tag = request.getTag() != null ? request.getTag().toLowerCase().trim() : null;
+            return photoRepository.findSummaries(request.getStatus(), tag);
+        }
+
+        Map<UUID, PhotoSummary> byId = new HashMap<>();
+        List<UUID> ids = request.getIds();
+        for (int i = 0; i < ids.size(); i += ID_CHUNK_SIZE) {
+            for (PhotoSummary summary : photoRepository.findSummariesByIds(ids.subList(i, Math.min(i + ID_CHUNK_SIZE, ids.size())))) {
+                byId.put(summary.id(), summary);
+            }
+        }
+
+        List<PhotoSummary> photos = new ArrayList<>(byId.size());
+        Set<UUID> seen = new HashSet<>();
+        for (UUID id : ids) {
+            PhotoSummary summary = byId.get(id);
+            if (summary != null && seen.add(id)) {
+                photos.add(summary);
+            }
+        }
+        return photos;
+    }
+
+    /**
+     * Write the photos to the output as a ZIP. Photos missing from storage are skipped and
+     * listed in an export-errors.txt entry at the end of the archive.
+     */
+    public void writeZip(List<PhotoSummary> photos, OutputStream out) throws IOException {
+        Path workDir = Files.createTempDirectory("photo-export");
+        Deque<Future<Prefetched>> window = new ArrayDeque<>();
+        int next = 0;
+
+        try {
+            ZipOutputStream zip = new ZipOutputStream(out);
+            Set<String> entryNames = new HashSet<>();
+            List<String> errors = new ArrayList<>();
+
+            while (next < photos.size() && window.size() < prefetchWindow) {
+                window.add(prefetch(photos.get(next++), workDir));
+            }
+
+            while (!window.isEmpty()) {
+                Prefetched item = await(window.poll());
+                if (next < photos.size()) {
+                    window.add(prefetch(photos.get(next++), workDir));
+                }
+
+                if (item.file() == null) {
+                    errors.add(item.photo().id() + " " + item.photo().filename() + ": not found in storage");
+                    continue;
+                }
+                try {
+                    writeEntry(zip, item, uniqueName(item.photo().filename(), entryNames));
+                } finally {
+                    Files.deleteIfExists(item.file());
+                }
+            }
+
+            if (!errors.isEmpty()) {
+                zip.putNextEntry(new ZipEntry(uniqueName("export-errors.txt", entryNames)));
+                zip.write(String.join("\n", errors).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            window.forEach(future -> future.cancel(true));
+            FileSystemUtils.deleteRecursively(workDir);
+        }
+    }
+
+    private Future<Prefetched> prefetch(PhotoSummary photo, Path workDir) {
+        return prefetchPool.submit(() -> {
+            try (InputStream in = s3StorageService.openPhotoStream(photo.id())) {
+                if (in == null) {
+                    return new Prefetched(photo, null, 0, 0);
+                }
+                Path file = workDir.resolve(photo.id().toString());
+                CheckedInputStream checked = new CheckedInputStream(in, new CRC32());
+                long size = Files.copy(checked, file);
+                return new Prefetched(photo, file, size, checked.getChecksum().getValue());
+            }
+        });
+    }
+
+    private void writeEntry(ZipOutputStream zip, Prefetched item, String name) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(item.photo().uploadedAt().toEpochMilli());
+        if (STORED_TYPES.contains(item.photo().mimeType())) {
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(item.size());
+            entry.setCompressedSize(item.size());
+            entry.setCrc(item.crc());
+        }
+
+        zip.putNextEntry(entry);
+        Files.copy(item.file(), zip);
+        zip.closeEntry();
+
+        photosExported.increment();
+        bytesExported.increment(item.size());
+    }
+
+    private Prefetched await(Future<Prefetched> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to fetch photo for export", e.getCause());
+        }
+    }
+
+    // Entry names must be unique and must not contain path separators
+    private String uniqueName(String filename, Set<String> used) {
+        String name = filename == null || filename.isBlank() ? "photo" : filename.replaceAll("[/\\\\]", "_");
+        if (used.add(name)) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int i = 2; ; i++) {
+            String candidate = base + " (" + i + ")" + extension;
+            if (used.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+}
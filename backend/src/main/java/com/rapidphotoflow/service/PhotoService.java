@@ -1,37 +1,117 @@
 package com.rapidphotoflow.service;
 
+import com.rapidphotoflow.domain.EventLog;
 import com.rapidphotoflow.domain.EventType;
 import com.rapidphotoflow.domain.Photo;
 import com.rapidphotoflow.domain.PhotoStatus;
+import com.rapidphotoflow.dto.BulkActionResponse;
+import com.rapidphotoflow.dto.PhotoChangesResponse;
+import com.rapidphotoflow.dto.PhotoDTO;
+import com.rapidphotoflow.dto.TagFacetDTO;
+import com.rapidphotoflow.dto.TagSuggestionDTO;
 import com.rapidphotoflow.entity.PhotoEntity;
 import com.rapidphotoflow.entity.UserEntity;
+import com.rapidphotoflow.repository.PhotoBulkRepository;
 import com.rapidphotoflow.repository.PhotoRepository;
+import com.rapidphotoflow.repository.PhotoSummary;
+import com.rapidphotoflow.repository.PhotoTombstoneRepository;
 import com.rapidphotoflow.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class PhotoService {
 
+    private static final int ID_CHUNK_SIZE = 1000;
+    private static final int DUPLICATE_HASH_BATCH_SIZE = 500;
+
+    /**
+     * Result of one duplicate cleanup step; pass nextCursor to the following call.
+     */
+    public record DuplicateBatch(List<PhotoDTO> removed, Map<String, String> errors, String nextCursor) {
+    }
+
+    // Delta sync position: snapshot xmin at issue time, and when it was issued
+    private record SyncCursor(long xmin, Instant issuedAt) {
+    }
+
     private final PhotoRepository photoRepository;
+    private final PhotoBulkRepository bulkRepository;
+    private final PhotoTombstoneRepository tombstoneRepository;
+    private final TransactionTemplate transactionTemplate;
     private final S3StorageService s3StorageService;
     private final EventService eventService;
     private final UserRepository userRepository;
+    private final UsernameCache usernameCache;
+    private final PhotoStatusCounter statusCounter;
+    private final PhotoCache photoCache;
+    private final TagIndex tagIndex;
+    private final TagFacetAggregator facetAggregator;
+    private final PhotoContentCache contentCache;
+    private final PhotoDerivativeService derivativeService;
+    private final ContentUrlService contentUrlService;
+    private final Duration tombstoneRetention;
+
+    private volatile boolean trigramInstalled;
+    private volatile boolean trigramWarningLogged;
+
+    public PhotoService(
+            PhotoRepository photoRepository,
+            PhotoBulkRepository bulkRepository,
+            PhotoTombstoneRepository tombstoneRepository,
+            TransactionTemplate transactionTemplate,
+            S3StorageService s3StorageService,
+            EventService eventService,
+            UserRepository userRepository,
+            UsernameCache usernameCache,
+            PhotoStatusCounter statusCounter,
+            PhotoCache photoCache,
+            TagIndex tagIndex,
+            TagFacetAggregator facetAggregator,
+            PhotoContentCache contentCache,
+            PhotoDerivativeService derivativeService,
+            ContentUrlService contentUrlService,
+            @Value("${photos.sync.tombstone-retention-hours:168}") long tombstoneRetentionHours) {
+        this.photoRepository = photoRepository;
+        this.bulkRepository = bulkRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.s3StorageService = s3StorageService;
+        this.eventService = eventService;
+        this.userRepository = userRepository;
+        this.usernameCache = usernameCache;
+        this.statusCounter = statusCounter;
+        this.photoCache = photoCache;
+        this.tagIndex = tagIndex;
+        this.facetAggregator = facetAggregator;
+        this.contentCache = contentCache;
+        this.derivativeService = derivativeService;
+        this.contentUrlService = contentUrlService;
+        this.tombstoneRetention = Duration.ofHours(tombstoneRetentionHours);
+    }
 
     @Transactional
     public List<Photo> uploadPhotos(List<MultipartFile> files) {
@@ -66,8 +146,9 @@ public class PhotoService {
                         .build();
 
                 photoRepository.save(entity);
-                eventService.logEvent(photoId, EventType.PHOTO_CREATED,
-                        "Photo uploaded: " + entity.getFilename());
+                statusCounter.created(PhotoStatus.PENDING);
+                eventService.logEvent(photoId, entity.getStatus(), entity.getUploadedByUserId(),
+                        EventType.PHOTO_CREATED, entity.getFilename());
 
                 uploadedPhotos.add(entityToPhoto(entity, null));
                 log.info("Photo uploaded: {} ({})", entity.getFilename(), photoId);
@@ -91,29 +172,208 @@ public class PhotoService {
     }
 
     public Optional<Photo> getPhotoById(UUID id) {
-        return photoRepository.findById(id).map(e -> entityToPhoto(e, null));
+        return photoCache.get(id, photoId -> photoRepository.findWithTagsById(photoId)
+                .map(e -> entityToPhoto(e, null)));
     }
 
     public byte[] getPhotoContent(UUID id) {
         return s3StorageService.downloadPhoto(id);
     }
 
-    public List<Photo> getAllPhotos() {
-        return photoRepository.findAllByOrderByUploadedAtDesc().stream()
-                .map(e -> entityToPhoto(e, null))
-                .collect(Collectors.toList());
+    /**
+     * Open the photo's bytes, served from the local disk cache, or straight from S3
+     * if the cache is disabled or cannot be used. A range missing from the cache is read
+     * from S3 while the cache fills in the background.
+     */
+    public PhotoContentStream openPhotoContent(Photo photo, String range) {
+        if (contentCache.isEnabled()) {
+            PhotoContentCache.ContentLoader loader = () -> s3StorageService.openPhotoStream(photo.getId());
+            try {
+                if (range == null) {
+                    return contentCache.open(photo.getContentKey(), null, loader);
+                }
+                PhotoContentStream cached = contentCache.openRangeIfCached(photo.getContentKey(), range, loader);
+                if (cached != null) {
+                    return cached;
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.warn("Content cache unavailable for photo {}, reading from S3: {}", photo.getId(), e.getMessage());
+            }
+        }
+        return s3StorageService.openPhoto(photo.getId(), range);
     }
 
-    public List<Photo> getPhotosByStatus(PhotoStatus status) {
-        return photoRepository.findByStatusOrderByUploadedAtDesc(status).stream()
-                .map(e -> entityToPhoto(e, null))
-                .collect(Collectors.toList());
+    public long getPhotoContentLength(UUID id) {
+        return s3StorageService.getPhotoSize(id);
     }
 
-    public List<Photo> getPhotosByStatuses(List<PhotoStatus> statuses) {
-        return photoRepository.findByStatusInOrderByUploadedAtDesc(statuses).stream()
-                .map(e -> entityToPhoto(e, null))
+    /**
+     * List photos straight into DTOs, optionally filtered by status and tag.
+     * Uses two queries (rows and their tags) without hydrating entities.
+     */
+    @Transactional(readOnly = true)
+    public List<PhotoDTO> listPhotos(PhotoStatus status, String tag) {
+        String normalizedTag = tag != null && !tag.isBlank() ? tag.toLowerCase().trim() : null;
+
+        List<PhotoSummary> rows = photoRepository.findSummaries(status, normalizedTag);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        return summariesToDtos(rows, photoRepository.findSummaryTags(status, normalizedTag));
+    }
+
+    /**
+     * Photos created, updated or deleted since the given cursor. Without a cursor, or when
+     * the cursor is older than the tombstone retention, returns everything with reset=true.
+     * The cursor holds the oldest transaction still running when it was issued, so the next
+     * call returns every write that was not visible yet, however late it commits. Writes
+     * already seen may be repeated; clients merge updates by ID.
+     */
+    @Transactional(readOnly = true)
+    public PhotoChangesResponse getChanges(String cursor) {
+        Instant now = Instant.now();
+        // Taken before reading, so anything the reads below miss is at or above it
+        String nextCursor = photoRepository.findSnapshotXmin() + "_" + now.toEpochMilli();
+        SyncCursor since = parseCursor(cursor);
+
+        // Embedded content URLs from before a refresh may have expired, so resend everything
+        if (since == null || since.issuedAt().isBefore(now.minus(tombstoneRetention))
+                || contentUrlService.refreshedSince(since.issuedAt())) {
+            return PhotoChangesResponse.builder()
+                    .updated(listPhotos(null, null))
+                    .deleted(List.of())
+                    .cursor(nextCursor)
+                    .reset(true)
+                    .build();
+        }
+
+        List<PhotoSummary> rows = photoRepository.findSummariesChangedSince(since.xmin());
+        List<PhotoDTO> updated = rows.isEmpty()
+                ? List.of()
+                : summariesToDtos(rows, photoRepository.findSummaryTagsChangedSince(since.xmin()));
+
+        return PhotoChangesResponse.builder()
+                .updated(updated)
+                .deleted(tombstoneRepository.findPhotoIdsDeletedSince(since.xmin()))
+                .cursor(nextCursor)
+                .reset(false)
+                .build();
+    }
+
+    /**
+     * Version tag for photo list responses. It changes whenever a write to photos commits,
+     * and is the same on every node.
+     */
+    public String getListVersion(PhotoStatus status, String tag) {
+        int filter = Objects.hash(status != null ? status.name() : null, tag);
+        return Integer.toHexString(filter) + "-" + photoRepository.findChangeVersion()
+                + contentUrlService.getVersionSuffix();
+    }
+
+    @Scheduled(fixedDelay = 3600000)
+    @Transactional
+    public void pruneTombstones() {
+        int removed = tombstoneRepository.deleteOlderThan(Instant.now().minus(tombstoneRetention));
+        if (removed > 0) {
+            log.info("Pruned {} photo tombstones", removed);
+        }
+    }
+
+    // Cursors from before transaction IDs were tracked do not parse, so they get a reset
+    private SyncCursor parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        int separator = cursor.indexOf('_');
+        if (separator < 0) {
+            return null;
+        }
+        try {
+            return new SyncCursor(Long.parseLong(cursor.substring(0, separator)),
+                    Instant.ofEpochMilli(Long.parseLong(cursor.substring(separator + 1))));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private List<PhotoDTO> summariesToDtos(List<PhotoSummary> rows, List<Object[]> tagPairs) {
+        Map<UUID, List<String>> tagsByPhoto = new HashMap<>();
+        for (Object[] row : tagPairs) {
+            tagsByPhoto.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        Set<UUID> userIds = new HashSet<>();
+        for (PhotoSummary row : rows) {
+            if (row.uploadedByUserId() != null) {
+                userIds.add(row.uploadedByUserId());
+            }
+        }
+        Map<UUID, String> usernames = usernameCache.getUsernames(userIds);
+
+        List<PhotoDTO> dtos = new ArrayList<>(rows.size());
+        for (PhotoSummary row : rows) {
+            dtos.add(PhotoDTO.builder()
+                    .id(row.id())
+                    .filename(row.filename())
+                    .mimeType(row.mimeType())
+                    .sizeBytes(row.sizeBytes())
+                    .status(row.status())
+                    .failureReason(row.failureReason())
+                    .uploadedAt(row.uploadedAt())
+                    .updatedAt(row.updatedAt())
+                    .tags(tagsByPhoto.getOrDefault(row.id(), List.of()))
+                    .uploadedByUsername(usernames.get(row.uploadedByUserId()))
+                    .build());
+        }
+        return dtos;
+    }
+
+    /**
+     * Search filenames and tags, best matches first.
+     */
+    @Transactional(readOnly = true)
+    public Page<Photo> searchPhotos(String query, int page, int size) {
+        String term = query.toLowerCase().trim();
+        String pattern = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        Pageable pageable = PageRequest.of(page, size);
+
+        List<UUID> ids = trigramAvailable()
+                ? photoRepository.searchIds(term, pattern, size, pageable.getOffset())
+                : photoRepository.searchIdsWithoutSimilarity(term, pattern, size, pageable.getOffset());
+        long total = photoRepository.countSearch(pattern);
+
+        // findAllById does not preserve order, so restore the ranking
+        Map<UUID, PhotoEntity> byId = new HashMap<>();
+        photoRepository.findAllById(ids).forEach(e -> byId.put(e.getId(), e));
+        List<PhotoEntity> ranked = ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+
+        return new PageImpl<>(entitiesToPhotos(ranked), pageable, total);
+    }
+
+    /**
+     * Whether pg_trgm is installed. Creating it may fail for lack of privileges, in which case
+     * search ranks without similarity. Re-checked until found, since it can be installed later.
+     */
+    private boolean trigramAvailable() {
+        if (!trigramInstalled) {
+            trigramInstalled = photoRepository.isTrigramAvailable();
+            if (!trigramInstalled && !trigramWarningLogged) {
+                trigramWarningLogged = true;
+                log.warn("pg_trgm is not installed; search results are ranked without filename similarity");
+            }
+        }
+        return trigramInstalled;
+    }
+
+    public List<TagSuggestionDTO> suggestTags(String prefix, int limit) {
+        return tagIndex.suggest(prefix, limit);
+    }
+
+    public List<TagFacetDTO> getTagFacets(PhotoStatus status, UUID uploaderId) {
+        return facetAggregator.getFacets(status, uploaderId);
     }
 
     @Transactional
@@ -130,12 +390,15 @@ public class PhotoService {
             throw new IllegalStateException("Can only approve from PROCESSED or REJECTED state");
         }
 
+        statusCounter.transitioned(entity.getStatus(), PhotoStatus.APPROVED);
+        facetAggregator.transitioned(entity.getTags(), entity.getUploadedByUserId(), entity.getStatus(), PhotoStatus.APPROVED);
         entity.setStatus(PhotoStatus.APPROVED);
         entity.setUpdatedAt(Instant.now());
         photoRepository.save(entity);
+        photoCache.invalidate(photoId);
 
-        eventService.logEvent(photoId, EventType.APPROVED,
-                "Photo approved: " + entity.getFilename());
+        eventService.logEvent(photoId, entity.getStatus(), entity.getUploadedByUserId(),
+                EventType.APPROVED, entity.getFilename());
         log.info("Photo approved: {} ({})", entity.getFilename(), photoId);
 
         return entityToPhoto(entity, null);
@@ -155,12 +418,15 @@ public class PhotoService {
             throw new IllegalStateException("Can only reject from PROCESSED, FAILED, or APPROVED state");
         }
 
+        statusCounter.transitioned(entity.getStatus(), PhotoStatus.REJECTED);
+        facetAggregator.transitioned(entity.getTags(), entity.getUploadedByUserId(), entity.getStatus(), PhotoStatus.REJECTED);
         entity.setStatus(PhotoStatus.REJECTED);
         entity.setUpdatedAt(Instant.now());
         photoRepository.save(entity);
+        photoCache.invalidate(photoId);
 
-        eventService.logEvent(photoId, EventType.REJECTED,
-                "Photo rejected: " + entity.getFilename());
+        eventService.logEvent(photoId, entity.getStatus(), entity.getUploadedByUserId(),
+                EventType.REJECTED, entity.getFilename());
         log.info("Photo rejected: {} ({})", entity.getFilename(), photoId);
 
         return entityToPhoto(entity, null);
@@ -175,24 +441,140 @@ public class PhotoService {
             throw new IllegalStateException("Can only retry from FAILED state");
         }
 
+        statusCounter.transitioned(entity.getStatus(), PhotoStatus.PENDING);
+        facetAggregator.transitioned(entity.getTags(), entity.getUploadedByUserId(), entity.getStatus(), PhotoStatus.PENDING);
         entity.setStatus(PhotoStatus.PENDING);
         entity.setFailureReason(null);
         entity.setUpdatedAt(Instant.now());
         photoRepository.save(entity);
+        photoCache.invalidate(photoId);
 
-        eventService.logEvent(photoId, EventType.RETRY_REQUESTED,
-                "Retry requested: " + entity.getFilename());
+        eventService.logEvent(photoId, entity.getStatus(), entity.getUploadedByUserId(),
+                EventType.RETRY_REQUESTED, entity.getFilename());
         log.info("Photo retry requested: {} ({})", entity.getFilename(), photoId);
 
         return entityToPhoto(entity, null);
     }
 
+    /**
+     * Apply approve, reject or retry to many photos with one guarded UPDATE, so only photos
+     * in an allowed predecessor status change. Ineligible and unknown IDs are reported per ID;
+     * approving an approved photo (or rejecting a rejected one) succeeds without a change,
+     * as it does for single photos.
+     */
+    @Transactional
+    public BulkActionResponse bulkAction(String action, List<UUID> ids) {
+        List<UUID> distinctIds = ids.stream().distinct().toList();
+
+        PhotoStatus target;
+        List<PhotoStatus> allowed;
+        EventType eventType;
+        String ineligibleMessage;
+        switch (action) {
+            case "approve" -> {
+                target = PhotoStatus.APPROVED;
+                allowed = List.of(PhotoStatus.PROCESSED, PhotoStatus.REJECTED);
+                eventType = EventType.APPROVED;
+                ineligibleMessage = "Can only approve from PROCESSED or REJECTED state";
+            }
+            case "reject" -> {
+                target = PhotoStatus.REJECTED;
+                allowed = List.of(PhotoStatus.PROCESSED, PhotoStatus.FAILED, PhotoStatus.APPROVED);
+                eventType = EventType.REJECTED;
+                ineligibleMessage = "Can only reject from PROCESSED, FAILED, or APPROVED state";
+            }
+            case "retry" -> {
+                target = PhotoStatus.PENDING;
+                allowed = List.of(PhotoStatus.FAILED);
+                eventType = EventType.RETRY_REQUESTED;
+                ineligibleMessage = "Can only retry from FAILED state";
+            }
+            default -> {
+                Map<String, String> errors = new LinkedHashMap<>();
+                distinctIds.forEach(id -> errors.put(id.toString(), "Invalid action: " + action));
+                return BulkActionResponse.builder()
+                        .success(List.of())
+                        .errors(errors)
+                        .successCount(0)
+                        .errorCount(errors.size())
+                        .build();
+            }
+        }
+        // Retry is the only action that is not idempotent for single photos
+        boolean idempotent = target != PhotoStatus.PENDING;
+
+        List<PhotoBulkRepository.TransitionedPhoto> transitioned = bulkRepository.transition(
+                distinctIds, allowed, target, target == PhotoStatus.PENDING, Instant.now());
+        Set<UUID> transitionedIds = new HashSet<>();
+        transitioned.forEach(photo -> transitionedIds.add(photo.id()));
+
+        // Current state of every requested photo, after the update
+        Map<UUID, PhotoSummary> summaries = new HashMap<>();
+        forEachChunk(distinctIds, chunk -> photoRepository.findSummariesByIds(chunk)
+                .forEach(summary -> summaries.put(summary.id(), summary)));
+
+        List<PhotoSummary> succeeded = new ArrayList<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (UUID id : distinctIds) {
+            PhotoSummary summary = summaries.get(id);
+            if (summary == null) {
+                errors.put(id.toString(), "Photo not found: " + id);
+            } else if (transitionedIds.contains(id) || (idempotent && summary.status() == target)) {
+                succeeded.add(summary);
+            } else {
+                errors.put(id.toString(), ineligibleMessage);
+            }
+        }
+
+        List<Object[]> tagPairs = new ArrayList<>();
+        forEachChunk(succeeded.stream().map(PhotoSummary::id).toList(),
+                chunk -> tagPairs.addAll(photoRepository.findTagPairsByPhotoIds(chunk)));
+
+        if (!transitioned.isEmpty()) {
+            Map<UUID, List<String>> tagsByPhoto = new HashMap<>();
+            for (Object[] row : tagPairs) {
+                tagsByPhoto.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((String) row[1]);
+            }
+
+            List<EventLog> events = new ArrayList<>(transitioned.size());
+            for (PhotoBulkRepository.TransitionedPhoto photo : transitioned) {
+                statusCounter.transitioned(photo.previousStatus(), target);
+                facetAggregator.transitioned(tagsByPhoto.getOrDefault(photo.id(), List.of()),
+                        photo.uploadedByUserId(), photo.previousStatus(), target);
+                events.add(EventLog.create(photo.id(), target, photo.uploadedByUserId(), eventType, photo.filename()));
+            }
+            photoCache.invalidate(transitionedIds);
+            eventService.logEvents(events);
+        }
+        log.info("Bulk {}: {} changed, {} unchanged, {} errors",
+                action, transitioned.size(), succeeded.size() - transitioned.size(), errors.size());
+
+        List<PhotoDTO> success = summariesToDtos(succeeded, tagPairs);
+        return BulkActionResponse.builder()
+                .success(success)
+                .errors(errors)
+                .successCount(success.size())
+                .errorCount(errors.size())
+                .build();
+    }
+
+    // Keeps IN lists well under the JDBC bind parameter limit
+    private void forEachChunk(List<UUID> ids, Consumer<List<UUID>> action) {
+        for (int i = 0; i < ids.size(); i += ID_CHUNK_SIZE) {
+            action.accept(ids.subList(i, Math.min(i + ID_CHUNK_SIZE, ids.size())));
+        }
+    }
+
     public long getPhotoCount() {
         return photoRepository.count();
     }
 
     public long getPhotoCountByStatus(PhotoStatus status) {
-        return photoRepository.countByStatus(status);
+        return statusCounter.getCount(status);
+    }
+
+    public Map<PhotoStatus, Long> getStatusCounts() {
+        return statusCounter.getCounts();
     }
 
     @Transactional
@@ -201,76 +583,177 @@ public class PhotoService {
                 .orElseThrow(() -> new IllegalArgumentException("Photo not found: " + photoId));
 
         String filename = entity.getFilename();
+        Set<String> tags = new HashSet<>(entity.getTags());
 
         // Delete from S3
         s3StorageService.deletePhoto(photoId);
 
         // Log event before deleting
-        eventService.logEvent(photoId, EventType.DELETED, "Photo deleted: " + filename);
+        eventService.logEvent(photoId, entity.getStatus(), entity.getUploadedByUserId(),
+                EventType.DELETED, filename, Map.of(EventLog.FILENAME, filename));
 
         // Delete from database
         photoRepository.deleteById(photoId);
+        statusCounter.deleted(entity.getStatus());
+        photoCache.invalidate(photoId);
+        tagIndex.photoDeleted(tags);
+        facetAggregator.deleted(tags, entity.getStatus(), entity.getUploadedByUserId());
+        deleteOrphanedDerivatives(Set.of(Photo.contentKey(photoId, entity.getContentHash())));
         log.info("Photo deleted: {} ({})", filename, photoId);
     }
 
+    /**
+     * Delete many photos: objects are removed from S3 with batched DeleteObjects, then every
+     * photo whose object is gone is removed with one DELETE ... RETURNING and its event
+     * logged in one batch. Photos whose object could not be deleted are kept and reported
+     * per ID, so the call can simply be retried.
+     */
     @Transactional
-    public List<Photo> deleteDuplicates() {
-        List<PhotoEntity> allPhotos = photoRepository.findAllByOrderByUploadedAtDesc();
-        Map<String, PhotoEntity> bestByHash = new HashMap<>();
-        List<Photo> duplicates = new ArrayList<>();
+    public BulkActionResponse bulkDelete(List<UUID> ids) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        List<PhotoDTO> success = deletePhotos(ids.stream().distinct().toList(), errors,
+                photo -> Map.of(EventLog.FILENAME, photo.filename()));
+
+        return BulkActionResponse.builder()
+                .success(success)
+                .errors(errors)
+                .successCount(success.size())
+                .errorCount(errors.size())
+                .build();
+    }
 
-        // Find the best photo for each content hash based on status priority
-        for (PhotoEntity entity : allPhotos) {
-            String hash = entity.getContentHash();
-            if (hash == null) continue;
+    /**
+     * Batched delete shared by bulk delete and duplicate cleanup; must run in a transaction.
+     * Returns the deleted photos in the given order and records a reason per ID in
+     * {@code errors} for the rest.
+     */
+    private List<PhotoDTO> deletePhotos(List<UUID> distinctIds, Map<String, String> errors,
+                                        Function<PhotoBulkRepository.DeletedPhoto, Map<String, String>> eventParams) {
+        Map<UUID, PhotoSummary> summaries = new HashMap<>();
+        forEachChunk(distinctIds, chunk -> photoRepository.findSummariesByIds(chunk)
+                .forEach(summary -> summaries.put(summary.id(), summary)));
+
+        List<UUID> existing = new ArrayList<>();
+        for (UUID id : distinctIds) {
+            if (summaries.containsKey(id)) {
+                existing.add(id);
+            } else {
+                errors.put(id.toString(), "Photo not found: " + id);
+            }
+        }
 
-            PhotoEntity existing = bestByHash.get(hash);
+        Map<UUID, String> storageFailures = existing.isEmpty() ? Map.of() : s3StorageService.deletePhotos(existing);
+        List<UUID> deletable = existing.stream().filter(id -> !storageFailures.containsKey(id)).toList();
+        storageFailures.forEach((id, reason) -> errors.put(id.toString(), reason));
 
-            if (existing == null) {
-                bestByHash.put(hash, entity);
-            } else {
-                int currentPriority = getStatusPriority(entity.getStatus());
-                int existingPriority = getStatusPriority(existing.getStatus());
-
-                if (currentPriority > existingPriority) {
-                    bestByHash.put(hash, entity);
-                } else if (currentPriority == existingPriority) {
-                    if (entity.getUploadedAt().isBefore(existing.getUploadedAt())) {
-                        bestByHash.put(hash, entity);
-                    }
-                }
+        List<Object[]> tagPairs = List.of();
+        List<PhotoBulkRepository.DeletedPhoto> deleted = List.of();
+        if (!deletable.isEmpty()) {
+            tagPairs = bulkRepository.deleteTags(deletable);
+            deleted = bulkRepository.delete(deletable);
+
+            Map<UUID, List<String>> tagsByPhoto = new HashMap<>();
+            for (Object[] row : tagPairs) {
+                tagsByPhoto.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add((String) row[1]);
+            }
+
+            List<EventLog> events = new ArrayList<>(deleted.size());
+            for (PhotoBulkRepository.DeletedPhoto photo : deleted) {
+                statusCounter.deleted(photo.status());
+                facetAggregator.deleted(tagsByPhoto.getOrDefault(photo.id(), List.of()),
+                        photo.status(), photo.uploadedByUserId());
+                events.add(EventLog.create(photo.id(), photo.status(), photo.uploadedByUserId(), EventType.DELETED,
+                        photo.filename(), eventParams.apply(photo)));
             }
+            photoCache.invalidate(deletable);
+            tagIndex.photosDeleted(tagsByPhoto.values());
+            Set<String> contentKeys = new HashSet<>();
+            deleted.forEach(photo -> contentKeys.add(Photo.contentKey(photo.id(), photo.contentHash())));
+            deleteOrphanedDerivatives(contentKeys);
+            eventService.logEvents(events);
         }
+        log.info("Deleted {} photos, {} errors", deleted.size(), errors.size());
 
-        // Delete all photos that are not the "best" for their hash
-        for (PhotoEntity entity : allPhotos) {
-            String hash = entity.getContentHash();
-            if (hash == null) continue;
+        Set<UUID> deletedIds = new HashSet<>();
+        deleted.forEach(photo -> deletedIds.add(photo.id()));
+        List<PhotoSummary> deletedSummaries = distinctIds.stream()
+                .filter(deletedIds::contains)
+                .map(summaries::get)
+                .toList();
 
-            PhotoEntity best = bestByHash.get(hash);
+        return summariesToDtos(deletedSummaries, tagPairs);
+    }
+
+    /**
+     * Once the deleting transaction commits, remove the stored derivatives of content that no
+     * remaining photo shares. Keys derived from IDs never match a content hash.
+     */
+    private void deleteOrphanedDerivatives(Set<String> contentKeys) {
+        if (contentKeys.isEmpty()) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            Set<String> orphaned = new HashSet<>(contentKeys);
+            orphaned.removeAll(photoRepository.findContentHashesIn(contentKeys));
+            derivativeService.deleteDerivatives(orphaned);
+        });
+    }
 
-            if (!entity.getId().equals(best.getId())) {
-                duplicates.add(entityToPhoto(entity, null));
-                s3StorageService.deletePhoto(entity.getId());
-                eventService.logEvent(entity.getId(), EventType.DELETED,
-                        "Duplicate removed: " + entity.getFilename() + " (kept " + best.getStatus() + " version)");
-                photoRepository.deleteById(entity.getId());
-                log.info("Duplicate photo removed: {} ({})", entity.getFilename(), entity.getId());
+    /**
+     * Remove every photo that shares its content hash with a better one, keeping per hash the
+     * photo with the highest status priority, then the earliest upload. The database groups
+     * and ranks the duplicates; hashes are walked in order a bounded batch per transaction,
+     * so memory stays flat and an interrupted run resumes on whatever is left. Photos whose
+     * object cannot be deleted from S3 are kept and logged.
+     */
+    public List<PhotoDTO> deleteDuplicates() {
+        List<PhotoDTO> removed = new ArrayList<>();
+        String cursor = "";
+
+        DuplicateBatch batch;
+        while ((batch = deleteDuplicateBatch(cursor)) != null) {
+            removed.addAll(batch.removed());
+            if (!batch.errors().isEmpty()) {
+                log.warn("Kept {} duplicates that could not be deleted: {}", batch.errors().size(), batch.errors());
             }
+            cursor = batch.nextCursor();
         }
 
-        return duplicates;
+        log.info("Duplicate cleanup removed {} photos", removed.size());
+        return removed;
     }
 
-    private int getStatusPriority(PhotoStatus status) {
-        return switch (status) {
-            case APPROVED -> 6;
-            case PROCESSED -> 5;
-            case PROCESSING -> 4;
-            case PENDING -> 3;
-            case FAILED -> 2;
-            case REJECTED -> 1;
-        };
+    /**
+     * One step of duplicate cleanup: removes the duplicates of the next batch of content hashes
+     * after the cursor in its own transaction (or the caller's). Returns null when none are left.
+     */
+    public DuplicateBatch deleteDuplicateBatch(String after) {
+        return transactionTemplate.execute(status -> {
+            List<Object[]> rows = photoRepository.lockDuplicateGroups(after, DUPLICATE_HASH_BATCH_SIZE);
+            if (rows.isEmpty()) {
+                return null;
+            }
+
+            List<UUID> ids = new ArrayList<>();
+            Map<UUID, String> keptStatus = new HashMap<>();
+            for (Object[] row : rows) {
+                if ((Boolean) row[3]) {
+                    UUID id = (UUID) row[0];
+                    ids.add(id);
+                    keptStatus.put(id, (String) row[2]);
+                }
+            }
+            String nextCursor = (String) rows.get(rows.size() - 1)[1];
+
+            Map<String, String> errors = new LinkedHashMap<>();
+            List<PhotoDTO> removed = ids.isEmpty() ? List.of() : deletePhotos(ids, errors,
+                    photo -> Map.of(EventLog.FILENAME, photo.filename(), EventLog.KEPT_STATUS, keptStatus.get(photo.id())));
+            return new DuplicateBatch(removed, errors, nextCursor);
+        });
+    }
+
+    public long countDuplicates() {
+        return photoRepository.countDuplicates();
     }
 
     @Transactional
@@ -282,8 +765,11 @@ public class PhotoService {
         if (entity.getTags().add(normalizedTag)) {
             entity.setUpdatedAt(Instant.now());
             photoRepository.save(entity);
-            eventService.logEvent(photoId, EventType.TAG_ADDED,
-                    "Tag '" + normalizedTag + "' added to " + entity.getFilename());
+            photoCache.invalidate(photoId);
+            tagIndex.tagAdded(normalizedTag);
+            facetAggregator.tagAdded(normalizedTag, entity.getStatus(), entity.getUploadedByUserId());
+            eventService.logEvent(photoId, entity.getStatus(), entity.getUploadedByUserId(),
+                    EventType.TAG_ADDED, entity.getFilename(), Map.of(EventLog.TAG, normalizedTag));
             log.info("Tag '{}' added to photo: {} ({})", normalizedTag, entity.getFilename(), photoId);
         }
 
@@ -299,23 +785,36 @@ public class PhotoService {
         if (entity.getTags().remove(normalizedTag)) {
             entity.setUpdatedAt(Instant.now());
             photoRepository.save(entity);
-            eventService.logEvent(photoId, EventType.TAG_REMOVED,
-                    "Tag '" + normalizedTag + "' removed from " + entity.getFilename());
+            photoCache.invalidate(photoId);
+            tagIndex.tagRemoved(normalizedTag);
+            facetAggregator.tagRemoved(normalizedTag, entity.getStatus(), entity.getUploadedByUserId());
+            eventService.logEvent(photoId, entity.getStatus(), entity.getUploadedByUserId(),
+                    EventType.TAG_REMOVED, entity.getFilename(), Map.of(EventLog.TAG, normalizedTag));
             log.info("Tag '{}' removed from photo: {} ({})", normalizedTag, entity.getFilename(), photoId);
         }
 
         return entityToPhoto(entity, null);
     }
 
+    // Convert a page of entities, resolving all uploader usernames in one batch
+    private List<Photo> entitiesToPhotos(List<PhotoEntity> entities) {
+        Set<UUID> userIds = entities.stream()
+                .map(PhotoEntity::getUploadedByUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<UUID, String> usernames = usernameCache.getUsernames(userIds);
+
+        return entities.stream()
+                .map(e -> entityToPhoto(e, null, usernames.get(e.getUploadedByUserId())))
+                .collect(Collectors.toList());
+    }
+
     // Convert entity to domain object
     private Photo entityToPhoto(PhotoEntity entity, byte[] content) {
-        String username = null;
-        if (entity.getUploadedByUserId() != null) {
-            username = userRepository.findById(entity.getUploadedByUserId())
-                    .map(UserEntity::getUsername)
-                    .orElse(null);
-        }
+        return entityToPhoto(entity, content, usernameCache.getUsername(entity.getUploadedByUserId()));
+    }
 
+    private Photo entityToPhoto(PhotoEntity entity, byte[] content, String username) {
         return Photo.builder()
                 .id(entity.getId())
                 .filename(entity.getFilename())
@@ -0,0 +1,87 @@
+package com.rapidphotoflow.service;
+
+import com.rapidphotoflow.domain.PhotoStatus;
+import com.rapidphotoflow.repository.PhotoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory count of photos per status, updated on every state transition.
+ * Counters are per node: changes made by other nodes (or directly in the database)
+ * are picked up by the periodic reconciliation against a single grouped count.
+ */
+@Component
+@Slf4j
+public class PhotoStatusCounter {
+
+    private final PhotoRepository photoRepository;
+    private final Map<PhotoStatus, AtomicLong> counts = new EnumMap<>(PhotoStatus.class);
+
+    public PhotoStatusCounter(PhotoRepository photoRepository) {
+        this.photoRepository = photoRepository;
+        for (PhotoStatus status : PhotoStatus.values()) {
+            counts.put(status, new AtomicLong());
+        }
+    }
+
+    public long getCount(PhotoStatus status) {
+        return counts.get(status).get();
+    }
+
+    public Map<PhotoStatus, Long> getCounts() {
+        Map<PhotoStatus, Long> snapshot = new EnumMap<>(PhotoStatus.class);
+        counts.forEach((status, count) -> snapshot.put(status, count.get()));
+        return snapshot;
+    }
+
+    /**
+     * Record a newly created photo.
+     */
+    public void created(PhotoStatus status) {
+        TransactionCallbacks.afterCommit(() -> counts.get(status).incrementAndGet());
+    }
+
+    /**
+     * Record a deleted photo.
+     */
+    public void deleted(PhotoStatus status) {
+        TransactionCallbacks.afterCommit(() -> counts.get(status).decrementAndGet());
+    }
+
+    /**
+     * Record a status transition. No-op when the status did not change.
+     */
+    public void transitioned(PhotoStatus from, PhotoStatus to) {
+        if (from == to) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            counts.get(from).decrementAndGet();
+            counts.get(to).incrementAndGet();
+        });
+    }
+
+    /**
+     * Replace the counters with the authoritative counts from the database.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${photos.counts.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        Map<PhotoStatus, Long> actual = new EnumMap<>(PhotoStatus.class);
+        for (PhotoRepository.StatusCount row : photoRepository.countGroupedByStatus()) {
+            actual.put(row.getStatus(), row.getCount());
+        }
+
+        for (PhotoStatus status : PhotoStatus.values()) {
+            long expected = actual.getOrDefault(status, 0L);
+            long previous = counts.get(status).getAndSet(expected);
+            if (previous != expected) {
+                log.debug("Reconciled {} count: {} -> {}", status, previous, expected);
+            }
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package com.rapidphotoflow.service;
+
+import com.rapidphotoflow.domain.EventLog;
+import com.rapidphotoflow.domain.EventType;
+import com.rapidphotoflow.domain.PipelineStage;
+import com.rapidphotoflow.dto.FailureReasonDTO;
+import com.rapidphotoflow.dto.PipelineStatsDTO;
+import com.rapidphotoflow.dto.StageLatencyDTO;
+import com.rapidphotoflow.dto.ThroughputPointDTO;
+import com.rapidphotoflow.entity.PhotoPipelineStateEntity;
+import com.rapidphotoflow.repository.PipelineStatsRepository;
+import com.rapidphotoflow.repository.PipelineStatsRepository.EventKey;
+import com.rapidphotoflow.repository.PipelineStatsRepository.EventRow;
+import com.rapidphotoflow.repository.PipelineStatsRepository.LatencyKey;
+import com.rapidphotoflow.repository.PipelineStatsRepository.LatencyRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pipeline latency, throughput and failure analytics, aggregated as events are logged rather
+ * than computed from the event log per request.
+ * <p>
+ * Pipeline events are queued after their transaction commits and flushed periodically. Each
+ * flush advances the per-photo stage state (see {@link PhotoPipelineStateEntity}), adds the
+ * latency of every stage a photo just left to a per-minute histogram, and counts the events
+ * per minute. Queries then sum minute buckets over the requested range, so their cost
+ * depends on the range, not on the number of events.
+ * <p>
+ * Latencies are binned logarithmically with {@value #BINS_PER_DOUBLING} bins per doubling,
+ * so a reported percentile is within about 9% of the exact value. Queued events are lost if
+ * the node dies, and an event whose preceding stage is still queued on another node counts
+ * towards throughput only; {@link #rebuild()} recomputes everything from the event log.
+ */
+@Service
+@Slf4j
+public class PipelineAnalyticsService {
+
+    public static final int BINS_PER_DOUBLING = 4;
+
+    private static final Set<EventType> PIPELINE_EVENTS = EnumSet.of(
+            EventType.PHOTO_CREATED, EventType.RETRY_REQUESTED, EventType.PROCESSING_STARTED,
+            EventType.PROCESSING_COMPLETED, EventType.PROCESSING_FAILED, EventType.APPROVED, EventType.REJECTED);
+    private static final String LOCK_NAME = "pipeline_analytics";
+    private static final Duration DEFAULT_RANGE = Duration.ofHours(24);
+    // A week of one-minute points
+    private static final int MAX_POINTS = 10_080;
+    private static final int FLUSH_BATCH_SIZE = 5000;
+    private static final double[] PERCENTILES = {0.50, 0.95, 0.99};
+    private static final Comparator<EventLog> OLDEST_FIRST =
+            Comparator.comparing(EventLog::getTimestamp).thenComparing(EventLog::getId);
+
+    private final PipelineStatsRepository statsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final BlockingQueue<EventLog> queue;
+    private final Counter dropped;
+    // Bumped by every rebuild, so a flush can tell its events were already counted
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    public PipelineAnalyticsService(
+            PipelineStatsRepository statsRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${analytics.pipeline.buffer-size:100000}") int bufferSize,
+            @Value("${analytics.pipeline.retention-days:90}") int retentionDays) {
+        this.statsRepository = statsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Flushes run from the scheduler and shutdown, never inside a caller's transaction
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.retention = Duration.ofDays(retentionDays);
+        this.queue = new ArrayBlockingQueue<>(bufferSize);
+
+        Gauge.builder("analytics.pipeline.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        this.dropped = Counter.builder("analytics.pipeline.dropped").register(meterRegistry);
+    }
+
+    /**
+     * Queue the pipeline events among the given ones for aggregation once the surrounding
+     * transaction commits. Events are dropped and counted when the queue is full.
+     */
+    public void record(List<EventLog> events) {
+        List<EventLog> pipeline = events.stream().filter(event -> PIPELINE_EVENTS.contains(event.getType())).toList();
+        if (pipeline.isEmpty()) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            for (EventLog event : pipeline) {
+                if (!queue.offer(event)) {
+                    dropped.increment();
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.pipeline.flush-interval-ms:5000}")
+    public void flush() {
+        List<EventLog> batch = new ArrayList<>(FLUSH_BATCH_SIZE);
+        long generation = rebuilds.get();
+        while (queue.drainTo(batch, FLUSH_BATCH_SIZE) > 0) {
+            try {
+                apply(batch, generation);
+            } catch (Exception e) {
+                log.error("Failed to aggregate {} pipeline events", batch.size(), e);
+                dropped.increment(batch.size());
+            }
+            batch.clear();
+            generation = rebuilds.get();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        flush();
+    }
+
+    /**
+     * Latency percentiles per stage, throughput per step and failures by reason over
+     * [from, to), to the minute. Defaults to the last 24 hours; uploader is optional.
+     */
+    public PipelineStatsDTO getPipelineStats(Instant from, Instant to, UUID uploaderId, int stepMinutes) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(DEFAULT_RANGE);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (stepMinutes < 1) {
+            throw new IllegalArgumentException("stepMinutes must be at least 1");
+        }
+        long stepSeconds = stepMinutes * 60L;
+        long firstStep = Math.floorDiv(start.getEpochSecond(), stepSeconds) * stepSeconds;
+        long points = Math.ceilDiv(end.getEpochSecond() - firstStep, stepSeconds);
+        if (points > MAX_POINTS) {
+            throw new IllegalArgumentException("Range has " + points + " steps; at most " + MAX_POINTS + " allowed");
+        }
+
+        List<StageLatencyDTO> stages = latencies(statsRepository.findLatencies(start, end, uploaderId));
+
+        // Every step is present so charts need not fill gaps
+        Map<Instant, ThroughputPointDTO> throughput = new TreeMap<>();
+        for (long second = firstStep; second < end.getEpochSecond(); second += stepSeconds) {
+            Instant stepStart = Instant.ofEpochSecond(second);
+            throughput.put(stepStart, ThroughputPointDTO.builder().start(stepStart).build());
+        }
+        Map<String, Long> failuresByReason = new HashMap<>();
+        long uploaded = 0;
+        long processed = 0;
+        long failed = 0;
+        for (EventRow row : statsRepository.findEventCounts(start, end, uploaderId, stepSeconds)) {
+            ThroughputPointDTO point = throughput.computeIfAbsent(row.bucketStart(),
+                    s -> ThroughputPointDTO.builder().start(s).build());
+            long count = row.count();
+            switch (row.eventType()) {
+                case PHOTO_CREATED -> {
+                    point.setUploaded(point.getUploaded() + count);
+                    uploaded += count;
+                }
+                case PROCESSING_COMPLETED -> {
+                    point.setProcessed(point.getProcessed() + count);
+                    processed += count;
+                }
+                case PROCESSING_FAILED -> {
+                    point.setFailed(point.getFailed() + count);
+                    failed += count;
+                    failuresByReason.merge(row.reason().isEmpty() ? "Unknown" : row.reason(), count, Long::sum);
+                }
+                case APPROVED -> point.setApproved(point.getApproved() + count);
+                case REJECTED -> point.setRejected(point.getRejected() + count);
+                default -> {
+                }
+            }
+        }
+
+        long attempts = processed + failed;
+        List<FailureReasonDTO> failures = failuresByReason.entrySet().stream()
+                .map(entry -> FailureReasonDTO.builder()
+                        .reason(entry.getKey())
+                        .count(entry.getValue())
+                        .rate((double) entry.getValue() / attempts)
+                        .build())
+                .sorted(Comparator.comparingLong(FailureReasonDTO::getCount).reversed()
+                        .thenComparing(FailureReasonDTO::getReason))
+                .toList();
+
+        return PipelineStatsDTO.builder()
+                .from(start)
+                .to(end)
+                .uploaderId(uploaderId)
+                .stepMinutes(stepMinutes)
+                .stages(stages)
+                .throughput(new ArrayList<>(throughput.values()))
+                .uploaded(uploaded)
+                .processed(processed)
+                .failed(failed)
+                .failureRate(attempts > 0 ? (double) failed / attempts : 0)
+                .failures(failures)
+                .build();
+    }
+
+    /**
+     * Recompute all analytics from the event log within the retention period. For events
+     * that bypassed {@link #record}, such as COPY-loaded datasets. Events still queued on
+     * this node have already committed, so they are discarded rather than counted twice.
+     */
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            lock("pg_advisory_xact_lock");
+            rebuilds.incrementAndGet();
+            List<EventLog> discarded = new ArrayList<>();
+            queue.drainTo(discarded);
+            log.debug("Discarded {} queued pipeline events covered by the rebuild", discarded.size());
+            statsRepository.rebuild(Instant.now().minus(retention), BINS_PER_DOUBLING);
+        });
+        log.info("Rebuilt pipeline analytics in {} ms", System.currentTimeMillis() - started);
+    }
+
+    // Existing deployments have events but no analytics until the first rebuild
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        try {
+            if (!statsRepository.hasState()) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to build pipeline analytics: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.pipeline.prune-interval-ms:3600000}")
+    public void prune() {
+        int removed = transactionTemplate.execute(status ->
+                statsRepository.deleteBefore(Instant.now().minus(retention)));
+        if (removed > 0) {
+            log.info("Pruned {} pipeline analytics rows older than {}", removed, retention);
+        }
+    }
+
+    private void apply(List<EventLog> events, long generation) {
+        events.sort(OLDEST_FIRST);
+        Set<UUID> photoIds = new HashSet<>();
+        events.forEach(event -> photoIds.add(event.getPhotoId()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Shared with other flushes, exclusive with a rebuild
+            lock("pg_advisory_xact_lock_shared");
+            // A rebuild since these events were drained has counted them already
+            if (rebuilds.get() != generation) {
+                log.debug("Discarded {} pipeline events covered by a rebuild", events.size());
+                return;
+            }
+            Map<UUID, PhotoPipelineStateEntity> states = statsRepository.findStates(photoIds);
+            Map<LatencyKey, long[]> latencies = new HashMap<>();
+            Map<EventKey, Long> counts = new HashMap<>();
+            Instant now = Instant.now();
+
+            for (EventLog event : events) {
+                PhotoPipelineStateEntity state = states.computeIfAbsent(event.getPhotoId(),
+                        id -> PhotoPipelineStateEntity.builder().photoId(id).build());
+                UUID uploaderId = state.getUploaderId() != null ? state.getUploaderId() : PipelineStatsRepository.NO_UPLOADER;
+                Instant at = event.getTimestamp();
+                Instant minute = at.truncatedTo(ChronoUnit.MINUTES);
+
+                String reason = event.getType() == EventType.PROCESSING_FAILED && event.getParam(EventLog.REASON) != null
+                        ? event.getParam(EventLog.REASON) : "";
+                counts.merge(new EventKey(minute, event.getType(), uploaderId, reason), 1L, Long::sum);
+
+                switch (event.getType()) {
+                    case PHOTO_CREATED -> {
+                        state.setCreatedAt(at);
+                        state.setQueuedAt(at);
+                    }
+                    case RETRY_REQUESTED -> state.setQueuedAt(at);
+                    case PROCESSING_STARTED -> {
+                        if (isOpen(state.getQueuedAt(), state.getProcessingStartedAt())) {
+                            addLatency(latencies, minute, PipelineStage.QUEUED, uploaderId, state.getQueuedAt(), at);
+                        }
+                        state.setProcessingStartedAt(at);
+                    }
+                    case PROCESSING_COMPLETED, PROCESSING_FAILED -> {
+                        if (isOpen(state.getProcessingStartedAt(), state.getProcessingFinishedAt())) {
+                            addLatency(latencies, minute, PipelineStage.PROCESSING, uploaderId,
+                                    state.getProcessingStartedAt(), at);
+                        }
+                        state.setProcessingFinishedAt(at);
+                    }
+                    case APPROVED, REJECTED -> {
+                        if (isOpen(state.getProcessingFinishedAt(), state.getReviewedAt())) {
+                            addLatency(latencies, minute, PipelineStage.REVIEW, uploaderId,
+                                    state.getProcessingFinishedAt(), at);
+                            if (state.getCreatedAt() != null) {
+                                addLatency(latencies, minute, PipelineStage.END_TO_END, uploaderId,
+                                        state.getCreatedAt(), at);
+                            }
+                        }
+                        state.setReviewedAt(at);
+                    }
+                    default -> {
+                    }
+                }
+                state.setUpdatedAt(now);
+            }
+
+            statsRepository.saveStates(states.values());
+            statsRepository.addLatencies(latencies);
+            statsRepository.addEventCounts(counts);
+        });
+    }
+
+    // A stage is still open when the photo entered it after last entering the next one
+    private static boolean isOpen(Instant entered, Instant nextEntered) {
+        return entered != null && (nextEntered == null || nextEntered.isBefore(entered));
+    }
+
+    private static void addLatency(Map<LatencyKey, long[]> latencies, Instant minute, PipelineStage stage,
+                                   UUID uploaderId, Instant from, Instant to) {
+        long ms = Math.max(0, Duration.between(from, to).toMillis());
+        long[] bucket = latencies.computeIfAbsent(new LatencyKey(minute, stage, uploaderId, bin(ms)), k -> new long[2]);
+        bucket[0]++;
+        bucket[1] += ms;
+    }
+
+    // Must match the bin expression of the rebuild SQL
+    static int bin(long ms) {
+        return (int) Math.floor(BINS_PER_DOUBLING * Math.log(ms + 1) / Math.log(2));
+    }
+
+    // Geometric middle of a bin
+    private static long binValue(int bin) {
+        return Math.round(Math.pow(2, (bin + 0.5) / BINS_PER_DOUBLING) - 1);
+    }
+
+    private List<StageLatencyDTO> latencies(List<LatencyRow> rows) {
+        Map<PipelineStage, TreeMap<Integer, long[]>> byStage = new EnumMap<>(PipelineStage.class);
+        for (LatencyRow row : rows) {
+            long[] bin = byStage.computeIfAbsent(row.stage(), s -> new TreeMap<>())
+                    .computeIfAbsent(row.bin(), b -> new long[2]);
+            bin[0] += row.count();
+            bin[1] += row.sumMs();
+        }
+
+        List<StageLatencyDTO> stages = new ArrayList<>();
+        byStage.forEach((stage, bins) -> {
+            long count = 0;
+            long sumMs = 0;
+            for (long[] bin : bins.values()) {
+                count += bin[0];
+                sumMs += bin[1];
+            }
+            if (count == 0) {
+                return;
+            }
+            long[] percentiles = new long[PERCENTILES.length];
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                long rank = (long) Math.ceil(PERCENTILES[i] * count);
+                long seen = 0;
+                for (Map.Entry<Integer, long[]> bin : bins.entrySet()) {
+                    seen += bin.getValue()[0];
+                    if (seen >= rank) {
+                        percentiles[i] = binValue(bin.getKey());
+                        break;
+                    }
+                }
+            }
+            stages.add(StageLatencyDTO.builder()
+                    .stage(stage)
+                    .count(count)
+                    .meanMs(sumMs / count)
+                    .p50Ms(percentiles[0])
+                    .p95Ms(percentiles[1])
+                    .p99Ms(percentiles[2])
+                    .build());
+        });
+        return stages;
+    }
+
+    private void lock(String function) {
+        jdbcTemplate.query("SELECT " + function + "(hashtextextended(?, 0))",
+                (ResultSetExtractor<Void>) rs -> null, LOCK_NAME);
+    }
+}
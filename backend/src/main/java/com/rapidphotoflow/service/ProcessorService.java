@@ -1,16 +1,20 @@
 package com.rapidphotoflow.service;
 
+import com.rapidphotoflow.domain.EventLog;
 import com.rapidphotoflow.domain.EventType;
 import com.rapidphotoflow.domain.PhotoStatus;
-import com.rapidphotoflow.entity.PhotoEntity;
 import com.rapidphotoflow.repository.PhotoRepository;
+import com.rapidphotoflow.repository.ProcessingCandidate;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
@@ -24,10 +28,15 @@ public class ProcessorService {
     private final S3StorageService s3StorageService;
     private final EventService eventService;
     private final AiTaggingService aiTaggingService;
+    private final PhotoStatusCounter statusCounter;
+    private final PhotoCache photoCache;
+    private final TagFacetAggregator facetAggregator;
     private final boolean autoTagOnUpload;
 
     private final ExecutorService executor = Executors.newFixedThreadPool(20);
 
+    private static final int BATCH_SIZE = 50;
+
     // Supported image MIME types
     private static final Set<String> SUPPORTED_MIME_TYPES = Set.of(
             "image/jpeg",
@@ -47,80 +56,106 @@ public class ProcessorService {
             S3StorageService s3StorageService,
             EventService eventService,
             AiTaggingService aiTaggingService,
+            PhotoStatusCounter statusCounter,
+            PhotoCache photoCache,
+            TagFacetAggregator facetAggregator,
             @Value("${ai.service.auto-tag-on-upload:false}") boolean autoTagOnUpload) {
         this.photoRepository = photoRepository;
         this.s3StorageService = s3StorageService;
         this.eventService = eventService;
         this.aiTaggingService = aiTaggingService;
+        this.statusCounter = statusCounter;
+        this.photoCache = photoCache;
+        this.facetAggregator = facetAggregator;
         this.autoTagOnUpload = autoTagOnUpload;
         log.info("Auto-tagging on upload: {}", autoTagOnUpload ? "ENABLED" : "DISABLED");
     }
 
     @Scheduled(fixedDelay = 500)
     public void processNextBatch() {
-        List<PhotoEntity> pendingPhotos = photoRepository.findByStatusOrderByUploadedAtDesc(PhotoStatus.PENDING);
+        // Only the IDs are needed here; each worker loads its own row
+        List<UUID> pendingIds = photoRepository.findIdsByStatus(PhotoStatus.PENDING, PageRequest.of(0, BATCH_SIZE));
 
-        if (pendingPhotos.isEmpty()) {
+        if (pendingIds.isEmpty()) {
             return;
         }
 
-        log.debug("Found {} pending photos to process", pendingPhotos.size());
+        log.debug("Found {} pending photos to process", pendingIds.size());
 
-        pendingPhotos.stream()
-                .limit(50)
-                .forEach(photo -> executor.submit(() -> processPhoto(photo.getId())));
+        pendingIds.forEach(photoId -> executor.submit(() -> processPhoto(photoId)));
     }
 
     @Transactional
     public void processPhoto(UUID photoId) {
-        PhotoEntity entity = photoRepository.findById(photoId).orElse(null);
-        if (entity == null) {
+        // Only the columns validation and events need; the row itself is written with targeted updates
+        ProcessingCandidate photo = photoRepository.findProcessingCandidate(photoId).orElse(null);
+        if (photo == null) {
             log.warn("Photo not found for processing: {}", photoId);
             return;
         }
 
         // Skip if not pending (may have been processed by another thread)
-        if (entity.getStatus() != PhotoStatus.PENDING) {
+        if (photo.status() != PhotoStatus.PENDING) {
             return;
         }
 
+        // Tags are only needed to keep facet counts in step with status changes. Fresh uploads
+        // have none, so skip the lookup unless this uploader has tagged pending photos at all
+        List<String> tags = facetAggregator.hasFacets(PhotoStatus.PENDING, photo.uploadedByUserId())
+                ? photoRepository.findTagsByPhotoId(photoId)
+                : List.of();
+
+        PhotoStatus status = PhotoStatus.PENDING;
         try {
-            // Start processing
-            entity.setStatus(PhotoStatus.PROCESSING);
-            photoRepository.save(entity);
-            eventService.logEvent(photoId, EventType.PROCESSING_STARTED,
-                    "Processing started: " + entity.getFilename());
-            log.info("Processing started: {} ({})", entity.getFilename(), photoId);
+            // Start processing; a concurrent worker that claimed the photo first leaves nothing to do
+            if (photoRepository.transition(photoId, status, PhotoStatus.PROCESSING, null, Instant.now()) == 0) {
+                return;
+            }
+            status = PhotoStatus.PROCESSING;
+            statusCounter.transitioned(PhotoStatus.PENDING, PhotoStatus.PROCESSING);
+            facetAggregator.transitioned(tags, photo.uploadedByUserId(), PhotoStatus.PENDING, PhotoStatus.PROCESSING);
+            photoCache.invalidate(photoId);
+            eventService.logEvent(photoId, PhotoStatus.PROCESSING, photo.uploadedByUserId(),
+                    EventType.PROCESSING_STARTED, photo.filename());
+            log.info("Processing started: {} ({})", photo.filename(), photoId);
 
             // Download content from S3 for validation
             byte[] content = s3StorageService.downloadPhoto(photoId);
 
             // Validate the photo
-            String validationError = validatePhoto(entity, content);
+            String validationError = validatePhoto(photo, content);
 
             if (validationError == null) {
-                entity.setStatus(PhotoStatus.PROCESSED);
-                entity.setFailureReason(null);
-                photoRepository.save(entity);
-                eventService.logEvent(photoId, EventType.PROCESSING_COMPLETED,
-                        "Processing completed: " + entity.getFilename());
-                log.info("Processing completed: {} ({})", entity.getFilename(), photoId);
+                photoRepository.transition(photoId, status, PhotoStatus.PROCESSED, null, Instant.now());
+                status = PhotoStatus.PROCESSED;
+                statusCounter.transitioned(PhotoStatus.PROCESSING, PhotoStatus.PROCESSED);
+                facetAggregator.transitioned(tags, photo.uploadedByUserId(), PhotoStatus.PROCESSING, PhotoStatus.PROCESSED);
+                photoCache.invalidate(photoId);
+                eventService.logEvent(photoId, PhotoStatus.PROCESSED, photo.uploadedByUserId(),
+                        EventType.PROCESSING_COMPLETED, photo.filename());
+                log.info("Processing completed: {} ({})", photo.filename(), photoId);
 
                 // Trigger auto-tagging asynchronously (non-blocking)
-                triggerAutoTagging(photoId, entity.getFilename());
+                triggerAutoTagging(photoId, photo.uploadedByUserId());
             } else {
-                entity.setStatus(PhotoStatus.FAILED);
-                entity.setFailureReason(validationError);
-                photoRepository.save(entity);
-                eventService.logEvent(photoId, EventType.PROCESSING_FAILED,
-                        "Processing failed: " + entity.getFilename() + " - " + validationError);
-                log.warn("Processing failed: {} ({}) - {}", entity.getFilename(), photoId, validationError);
+                photoRepository.transition(photoId, status, PhotoStatus.FAILED, validationError, Instant.now());
+                status = PhotoStatus.FAILED;
+                statusCounter.transitioned(PhotoStatus.PROCESSING, PhotoStatus.FAILED);
+                facetAggregator.transitioned(tags, photo.uploadedByUserId(), PhotoStatus.PROCESSING, PhotoStatus.FAILED);
+                photoCache.invalidate(photoId);
+                eventService.logEvent(photoId, PhotoStatus.FAILED, photo.uploadedByUserId(),
+                        EventType.PROCESSING_FAILED, photo.filename(),
+                        Map.of(EventLog.REASON, validationError));
+                log.warn("Processing failed: {} ({}) - {}", photo.filename(), photoId, validationError);
             }
 
         } catch (Exception e) {
-            entity.setStatus(PhotoStatus.FAILED);
-            entity.setFailureReason("Unexpected error: " + e.getMessage());
-            photoRepository.save(entity);
+            if (photoRepository.transition(photoId, status, PhotoStatus.FAILED,
+                    "Unexpected error: " + e.getMessage(), Instant.now()) > 0) {
+                statusCounter.transitioned(status, PhotoStatus.FAILED);
+                facetAggregator.transitioned(tags, photo.uploadedByUserId(), status, PhotoStatus.FAILED);
+                photoCache.invalidate(photoId);
+            }
             log.error("Error processing photo: {}", photoId, e);
         }
     }
@@ -130,7 +165,7 @@ public class ProcessorService {
      * This runs asynchronously and does not block photo processing.
      * Only runs if auto-tagging is enabled in configuration.
      */
-    private void triggerAutoTagging(UUID photoId, String filename) {
+    private void triggerAutoTagging(UUID photoId, UUID uploadedByUserId) {
         if (!autoTagOnUpload) {
             log.debug("Auto-tagging disabled, skipping for photo {}", photoId);
             return;
@@ -145,8 +180,8 @@ public class ProcessorService {
 
                 List<String> tags = aiTaggingService.autoTagPhoto(photoId);
                 if (!tags.isEmpty()) {
-                    eventService.logEvent(photoId, EventType.AUTO_TAGGED,
-                            "Auto-tagged with: " + String.join(", ", tags));
+                    eventService.logEvent(photoId, PhotoStatus.PROCESSED, uploadedByUserId, EventType.AUTO_TAGGED, null,
+                            Map.of(EventLog.TAGS, String.join(", ", tags)));
                 }
             } catch (Exception e) {
                 log.error("Error during auto-tagging for photo {}: {}", photoId, e.getMessage());
@@ -157,20 +192,20 @@ public class ProcessorService {
     /**
      * Validate the photo and return an error message if invalid, or null if valid.
      */
-    private String validatePhoto(PhotoEntity entity, byte[] content) {
+    private String validatePhoto(ProcessingCandidate photo, byte[] content) {
         // Check if content exists
         if (content == null || content.length == 0) {
             return "File content is empty or corrupted";
         }
 
         // Check MIME type
-        String mimeType = entity.getMimeType();
+        String mimeType = photo.mimeType();
         if (mimeType == null || !SUPPORTED_MIME_TYPES.contains(mimeType.toLowerCase())) {
             return "Unsupported image format: " + (mimeType != null ? mimeType : "unknown");
         }
 
         // Check file size (reject files over 50MB)
-        if (entity.getSizeBytes() > 50 * 1024 * 1024) {
+        if (photo.sizeBytes() > 50 * 1024 * 1024) {
             return "File size exceeds 50MB limit";
         }
 
@@ -4,11 +4,21 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -17,6 +27,9 @@ import java.util.UUID;
 public class S3StorageService {
 
     private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+
+    private static final int DELETE_BATCH_SIZE = 1000;
 
     @Value("${aws.s3.bucket.photos:}")
     private String photoBucket;
@@ -59,6 +72,180 @@ public class S3StorageService {
         }
     }
 
+    /**
+     * Open a stream over the stored object, or a single byte range of it.
+     * Returns null if the object does not exist.
+     *
+     * @param range an HTTP Range header value for a single range, or null for the whole object
+     * @throws IllegalArgumentException if the range cannot be satisfied
+     */
+    public PhotoContentStream openPhoto(UUID photoId, String range) {
+        String key = "photos/" + photoId.toString();
+
+        try {
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(photoBucket)
+                    .key(key)
+                    .range(range)
+                    .build();
+
+            ResponseInputStream<GetObjectResponse> stream = s3Client.getObject(request);
+            GetObjectResponse response = stream.response();
+            String contentRange = range != null ? response.contentRange() : null;
+            long totalLength = contentRange != null
+                    ? Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1))
+                    : response.contentLength();
+
+            return PhotoContentStream.ofStream(stream, response.contentLength(), totalLength, contentRange);
+        } catch (NoSuchKeyException e) {
+            log.warn("Photo not found in S3: {}", key);
+            return null;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 416) {
+                throw new IllegalArgumentException("Requested range not satisfiable: " + range);
+            }
+            log.error("Failed to open photo from S3: {}", photoId, e);
+            throw new RuntimeException("Failed to open photo from S3", e);
+        }
+    }
+
+    /**
+     * Open a stream over the whole stored object, or return null if it does not exist.
+     */
+    public InputStream openPhotoStream(UUID photoId) {
+        String key = "photos/" + photoId.toString();
+
+        try {
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(photoBucket)
+                    .key(key)
+                    .build();
+
+            return s3Client.getObject(request);
+        } catch (NoSuchKeyException e) {
+            log.warn("Photo not found in S3: {}", key);
+            return null;
+        } catch (Exception e) {
+            log.error("Failed to open photo from S3: {}", photoId, e);
+            throw new RuntimeException("Failed to open photo from S3", e);
+        }
+    }
+
+    /**
+     * Store a rendered derivative (resized or converted copy) under the derivatives prefix.
+     */
+    public void uploadDerivative(String name, byte[] content, String contentType) {
+        String key = "derivatives/" + name;
+
+        try {
+            PutObjectRequest request = PutObjectRequest.builder()
+                    .bucket(photoBucket)
+                    .key(key)
+                    .contentType(contentType)
+                    .build();
+
+            s3Client.putObject(request, RequestBody.fromBytes(content));
+            log.debug("Uploaded derivative to S3: {}/{}", photoBucket, key);
+        } catch (Exception e) {
+            log.error("Failed to upload derivative to S3: {}", name, e);
+            throw new RuntimeException("Failed to upload derivative to S3", e);
+        }
+    }
+
+    /**
+     * Delete every stored derivative of the given content key. Failures are logged, since a
+     * leftover derivative only costs storage.
+     */
+    public void deleteDerivatives(String contentKey) {
+        String prefix = "derivatives/" + contentKey + "-";
+
+        try {
+            List<ObjectIdentifier> keys = s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                            .bucket(photoBucket)
+                            .prefix(prefix)
+                            .build())
+                    .contents().stream()
+                    .map(object -> ObjectIdentifier.builder().key(object.key()).build())
+                    .toList();
+
+            for (int i = 0; i < keys.size(); i += DELETE_BATCH_SIZE) {
+                s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                        .bucket(photoBucket)
+                        .delete(Delete.builder()
+                                .objects(keys.subList(i, Math.min(i + DELETE_BATCH_SIZE, keys.size())))
+                                .quiet(true)
+                                .build())
+                        .build());
+            }
+            if (!keys.isEmpty()) {
+                log.debug("Deleted {} derivatives of {}", keys.size(), contentKey);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to delete derivatives of {}: {}", contentKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Fetch a stored derivative, or return null if it has not been rendered yet.
+     */
+    public byte[] downloadDerivative(String name) {
+        String key = "derivatives/" + name;
+
+        try {
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(photoBucket)
+                    .key(key)
+                    .build();
+
+            return s3Client.getObjectAsBytes(request).asByteArray();
+        } catch (NoSuchKeyException e) {
+            return null;
+        } catch (Exception e) {
+            log.error("Failed to download derivative from S3: {}", name, e);
+            throw new RuntimeException("Failed to download derivative from S3", e);
+        }
+    }
+
+    /**
+     * Presigned GET URL for the stored object, valid for the given duration.
+     * Signing is local; no request is made to S3.
+     */
+    public String presignPhotoUrl(UUID photoId, Duration validity) {
+        String key = "photos/" + photoId.toString();
+
+        GetObjectPresignRequest request = GetObjectPresignRequest.builder()
+                .signatureDuration(validity)
+                .getObjectRequest(GetObjectRequest.builder()
+                        .bucket(photoBucket)
+                        .key(key)
+                        .build())
+                .build();
+
+        return s3Presigner.presignGetObject(request).url().toString();
+    }
+
+    /**
+     * Size of the stored object in bytes, or -1 if it does not exist.
+     */
+    public long getPhotoSize(UUID photoId) {
+        String key = "photos/" + photoId.toString();
+
+        try {
+            HeadObjectRequest request = HeadObjectRequest.builder()
+                    .bucket(photoBucket)
+                    .key(key)
+                    .build();
+
+            return s3Client.headObject(request).contentLength();
+        } catch (NoSuchKeyException e) {
+            log.warn("Photo not found in S3: {}", key);
+            return -1;
+        } catch (Exception e) {
+            log.error("Failed to read photo metadata from S3: {}", photoId, e);
+            throw new RuntimeException("Failed to read photo metadata from S3", e);
+        }
+    }
+
     public void deletePhoto(UUID photoId) {
         String key = "photos/" + photoId.toString();
 
@@ -76,6 +263,106 @@ public class S3StorageService {
         }
     }
 
+    /**
+     * Delete many photos with DeleteObjects, up to 1,000 keys per request.
+     * Returns the photos that could not be deleted, with the reason; missing keys count as deleted.
+     */
+    public Map<UUID, String> deletePhotos(Collection<UUID> photoIds) {
+        Map<UUID, String> failures = new HashMap<>();
+        List<UUID> ids = List.copyOf(photoIds);
+
+        for (int i = 0; i < ids.size(); i += DELETE_BATCH_SIZE) {
+            List<UUID> batch = ids.subList(i, Math.min(i + DELETE_BATCH_SIZE, ids.size()));
+            try {
+                DeleteObjectsRequest request = DeleteObjectsRequest.builder()
+                        .bucket(photoBucket)
+                        .delete(Delete.builder()
+                                .objects(batch.stream()
+                                        .map(id -> ObjectIdentifier.builder().key("photos/" + id).build())
+                                        .toList())
+                                .quiet(true)
+                                .build())
+                        .build();
+
+                DeleteObjectsResponse response = s3Client.deleteObjects(request);
+                for (S3Error error : response.errors()) {
+                    UUID photoId = UUID.fromString(error.key().substring("photos/".length()));
+                    failures.put(photoId, error.code() + ": " + error.message());
+                }
+            } catch (Exception e) {
+                log.error("Failed to delete {} photos from S3", batch.size(), e);
+                batch.forEach(id -> failures.put(id, "Storage delete failed: " + e.getMessage()));
+            }
+        }
+
+        log.info("Deleted {} photos from S3 ({} failed)", ids.size() - failures.size(), failures.size());
+        return failures;
+    }
+
+    /**
+     * Store a file under the archives prefix, streaming it from disk.
+     */
+    public void uploadArchive(String name, Path file, String contentType) {
+        String key = "archives/" + name;
+
+        try {
+            PutObjectRequest request = PutObjectRequest.builder()
+                    .bucket(photoBucket)
+                    .key(key)
+                    .contentType(contentType)
+                    .build();
+
+            s3Client.putObject(request, RequestBody.fromFile(file));
+            log.info("Uploaded archive to S3: {}/{}", photoBucket, key);
+        } catch (Exception e) {
+            log.error("Failed to upload archive to S3: {}", name, e);
+            throw new RuntimeException("Failed to upload archive to S3", e);
+        }
+    }
+
+    /**
+     * Size of a stored archive in bytes, or -1 if it does not exist.
+     */
+    public long getArchiveSize(String name) {
+        String key = "archives/" + name;
+
+        try {
+            HeadObjectRequest request = HeadObjectRequest.builder()
+                    .bucket(photoBucket)
+                    .key(key)
+                    .build();
+
+            return s3Client.headObject(request).contentLength();
+        } catch (NoSuchKeyException e) {
+            return -1;
+        } catch (Exception e) {
+            log.error("Failed to read archive metadata from S3: {}", name, e);
+            throw new RuntimeException("Failed to read archive metadata from S3", e);
+        }
+    }
+
+    /**
+     * Open a stream over a stored archive, or return null if it does not exist.
+     */
+    public InputStream openArchive(String name) {
+        String key = "archives/" + name;
+
+        try {
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(photoBucket)
+                    .key(key)
+                    .build();
+
+            return s3Client.getObject(request);
+        } catch (NoSuchKeyException e) {
+            log.warn("Archive not found in S3: {}", key);
+            return null;
+        } catch (Exception e) {
+            log.error("Failed to open archive from S3: {}", name, e);
+            throw new RuntimeException("Failed to open archive from S3", e);
+        }
+    }
+
     public String getPhotoUrl(UUID photoId) {
         return String.format("https://%s.s3.amazonaws.com/photos/%s", photoBucket, photoId.toString());
     }
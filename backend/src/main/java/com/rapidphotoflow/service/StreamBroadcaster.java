@@ -0,0 +1,218 @@
+package com.rapidphotoflow.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidphotoflow.domain.Photo;
+import com.rapidphotoflow.domain.PhotoStatus;
+import com.rapidphotoflow.dto.EventDTO;
+import com.rapidphotoflow.dto.EventNotificationDTO;
+import com.rapidphotoflow.dto.PhotoDTO;
+import com.rapidphotoflow.dto.StreamEventDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans out photo events to Server-Sent Events subscribers.
+ * Events arrive once per node over the cluster notification channel carrying the photo's
+ * status and uploader, so filtering needs no lookup; the photo is loaded and the event
+ * serialized once, and only if some subscriber matches. Messages are queued per subscriber
+ * in a bounded buffer. A subscriber whose buffer overflows
+ * is disconnected rather than allowed to hold back everyone else.
+ */
+@Component
+@Slf4j
+public class StreamBroadcaster {
+
+    /**
+     * Optional subscriber filters; null fields match everything.
+     * Events logged without the photo's state match every status and user filter.
+     */
+    public record StreamFilter(UUID userId, PhotoStatus status, UUID photoId) {
+    }
+
+    private record Message(String name, String id, String data) {
+    }
+
+    private static final Message HEARTBEAT = new Message(null, null, null);
+    private static final Message RESYNC = new Message("resync", null, "{}");
+
+    private final PhotoService photoService;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long timeoutMs;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Single thread keeps events in commit order
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+    private final ExecutorService senders = Executors.newFixedThreadPool(4);
+    private final Counter droppedSubscribers;
+
+    public StreamBroadcaster(
+            PhotoService photoService,
+            ObjectMapper objectMapper,
+            ClusterNotificationService notificationService,
+            MeterRegistry meterRegistry,
+            @Value("${stream.buffer-size:256}") int bufferSize,
+            @Value("${stream.timeout-ms:1800000}") long timeoutMs) {
+        this.photoService = photoService;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+
+        notificationService.subscribe(EventService.EVENTS_CHANNEL,
+                payload -> dispatcher.execute(() -> fanOut(payload)));
+
+        Gauge.builder("stream.subscribers", subscribers, Set::size).register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("stream.subscribers.dropped").register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(StreamFilter filter) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, filter);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        subscribers.add(subscriber);
+        log.debug("Stream subscriber added ({} active)", subscribers.size());
+        return emitter;
+    }
+
+    @Scheduled(fixedDelay = 15000)
+    public void sendHeartbeats() {
+        subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void fanOut(String payload) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        // A null payload means notifications may have been missed; clients should refetch
+        if (payload == null) {
+            subscribers.forEach(subscriber -> subscriber.offer(RESYNC));
+            return;
+        }
+
+        try {
+            EventNotificationDTO notification = objectMapper.readValue(payload, EventNotificationDTO.class);
+            List<Subscriber> recipients = subscribers.stream()
+                    .filter(subscriber -> matches(subscriber.filter, notification))
+                    .toList();
+            if (recipients.isEmpty()) {
+                return;
+            }
+
+            EventDTO event = notification.getEvent();
+            Optional<Photo> photo = notification.getStatus() != null
+                    ? photoService.getPhotoById(event.getPhotoId())
+                    : Optional.empty();
+            String data = objectMapper.writeValueAsString(StreamEventDTO.builder()
+                    .event(event)
+                    .photo(photo.map(PhotoDTO::fromEntity).orElse(null))
+                    .build());
+            Message message = new Message("photo-event", String.valueOf(event.getId()), data);
+            recipients.forEach(subscriber -> subscriber.offer(message));
+        } catch (Exception e) {
+            log.error("Failed to broadcast event: {}", e.getMessage());
+        }
+    }
+
+    // Filters apply to the photo as it was when the event was logged, not as it is now
+    private boolean matches(StreamFilter filter, EventNotificationDTO notification) {
+        if (filter.photoId() != null && !filter.photoId().equals(notification.getEvent().getPhotoId())) {
+            return false;
+        }
+        if (notification.getStatus() == null) {
+            return true;
+        }
+        if (filter.status() != null && filter.status() != notification.getStatus()) {
+            return false;
+        }
+        return filter.userId() == null || filter.userId().equals(notification.getUploadedByUserId());
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            droppedSubscribers.increment();
+            log.info("Dropping slow stream subscriber after {} buffered messages", bufferSize);
+            subscriber.emitter.complete();
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final StreamFilter filter;
+        private final BlockingQueue<Message> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, StreamFilter filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+        }
+
+        void offer(Message message) {
+            if (!queue.offer(message)) {
+                drop(this);
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        // At most one drain task per subscriber runs at a time, preserving order
+        private void drain() {
+            try {
+                do {
+                    Message message;
+                    while ((message = queue.poll()) != null) {
+                        emitter.send(toEvent(message));
+                    }
+                    draining.set(false);
+                } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                draining.set(false);
+                subscribers.remove(this);
+            }
+        }
+
+        private SseEmitter.SseEventBuilder toEvent(Message message) {
+            if (message == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            SseEmitter.SseEventBuilder event = SseEmitter.event().name(message.name());
+            if (message.id() != null) {
+                event.id(message.id());
+            }
+            return event.data(message.data(), MediaType.APPLICATION_JSON);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.rapidphotoflow.service;
+
+import com.rapidphotoflow.domain.PhotoStatus;
+import com.rapidphotoflow.dto.TagFacetDTO;
+import com.rapidphotoflow.repository.PhotoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory count of tagged photos per (tag, status, uploader), updated on tag changes,
+ * status transitions and deletes. Facet queries cost the number of distinct combinations,
+ * not the number of photos. Like {@link PhotoStatusCounter}, counts are per node and
+ * periodically reconciled from the database.
+ */
+@Component
+@Slf4j
+public class TagFacetAggregator {
+
+    private record FacetKey(String tag, PhotoStatus status, UUID uploaderId) {
+    }
+
+    private final PhotoRepository photoRepository;
+    private final Map<FacetKey, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    public TagFacetAggregator(PhotoRepository photoRepository) {
+        this.photoRepository = photoRepository;
+    }
+
+    /**
+     * Tag counts with a per-status breakdown, most used first.
+     * Status and uploader are optional filters.
+     */
+    public List<TagFacetDTO> getFacets(PhotoStatus status, UUID uploaderId) {
+        Map<String, Map<PhotoStatus, Long>> byTag = new HashMap<>();
+        counts.forEach((key, count) -> {
+            long value = count.get();
+            if (value <= 0
+                    || (status != null && key.status() != status)
+                    || (uploaderId != null && !uploaderId.equals(key.uploaderId()))) {
+                return;
+            }
+            byTag.computeIfAbsent(key.tag(), t -> new EnumMap<>(PhotoStatus.class))
+                    .merge(key.status(), value, Long::sum);
+        });
+
+        return byTag.entrySet().stream()
+                .map(entry -> TagFacetDTO.builder()
+                        .tag(entry.getKey())
+                        .count(entry.getValue().values().stream().mapToLong(Long::longValue).sum())
+                        .byStatus(entry.getValue())
+                        .build())
+                .sorted(Comparator.comparingLong(TagFacetDTO::getCount).reversed()
+                        .thenComparing(TagFacetDTO::getTag))
+                .toList();
+    }
+
+    /**
+     * Whether any photo with this status and uploader currently counts towards a tag.
+     * When not, such a photo has no tags and there is nothing to look up.
+     */
+    public boolean hasFacets(PhotoStatus status, UUID uploaderId) {
+        return counts.entrySet().stream().anyMatch(entry -> entry.getValue().get() > 0
+                && entry.getKey().status() == status
+                && Objects.equals(entry.getKey().uploaderId(), uploaderId));
+    }
+
+    public void tagAdded(String tag, PhotoStatus status, UUID uploaderId) {
+        TransactionCallbacks.afterCommit(() -> adjust(tag, status, uploaderId, 1));
+    }
+
+    public void tagRemoved(String tag, PhotoStatus status, UUID uploaderId) {
+        TransactionCallbacks.afterCommit(() -> adjust(tag, status, uploaderId, -1));
+    }
+
+    public void transitioned(Collection<String> tags, UUID uploaderId, PhotoStatus from, PhotoStatus to) {
+        if (from == to || tags.isEmpty()) {
+            return;
+        }
+        List<String> snapshot = List.copyOf(tags);
+        TransactionCallbacks.afterCommit(() -> snapshot.forEach(tag -> {
+            adjust(tag, from, uploaderId, -1);
+            adjust(tag, to, uploaderId, 1);
+        }));
+    }
+
+    public void deleted(Collection<String> tags, PhotoStatus status, UUID uploaderId) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        List<String> snapshot = List.copyOf(tags);
+        TransactionCallbacks.afterCommit(() -> snapshot.forEach(tag -> adjust(tag, status, uploaderId, -1)));
+    }
+
+    /**
+     * Replace the aggregates with a grouped count from the database.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${photos.facets.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Map<FacetKey, Long> actual = new HashMap<>();
+        for (Object[] row : photoRepository.countTagsGroupedByStatusAndUploader()) {
+            actual.put(new FacetKey((String) row[0], (PhotoStatus) row[1], (UUID) row[2]), (Long) row[3]);
+        }
+
+        counts.keySet().removeIf(key -> !actual.containsKey(key));
+        actual.forEach((key, count) -> counts.computeIfAbsent(key, k -> new AtomicLong()).set(count));
+        log.debug("Reconciled tag facets: {} combinations", actual.size());
+    }
+
+    private void adjust(String tag, PhotoStatus status, UUID uploaderId, long delta) {
+        counts.computeIfAbsent(new FacetKey(tag, status, uploaderId), k -> new AtomicLong()).addAndGet(delta);
+    }
+}
@@ -0,0 +1,175 @@
+package com.rapidphotoflow.service;
+
+import com.rapidphotoflow.dto.TagSuggestionDTO;
+import com.rapidphotoflow.repository.PhotoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory sorted index of tag to photo count used for typeahead.
+ * Built from photo_tags on startup and kept current incrementally from tag changes
+ * and deletes, on this node after commit and on other nodes via NOTIFY.
+ */
+@Component
+@Slf4j
+public class TagIndex {
+
+    private static final String CHANNEL = "tag_index_changes";
+    private static final String REBUILD = "*";
+
+    private static final Comparator<TagSuggestionDTO> MOST_USED = Comparator
+            .comparingLong(TagSuggestionDTO::getCount).reversed()
+            .thenComparing(TagSuggestionDTO::getTag);
+
+    private final PhotoRepository photoRepository;
+    private final ClusterNotificationService notificationService;
+    // Changes are sent as "<origin node>|<delta>|<tag>"; the origin applies its own after commit
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final NavigableMap<String, Long> countsByTag = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public TagIndex(PhotoRepository photoRepository, ClusterNotificationService notificationService) {
+        this.photoRepository = photoRepository;
+        this.notificationService = notificationService;
+        notificationService.subscribe(CHANNEL, this::onNotification);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        NavigableMap<String, Long> rebuilt = new TreeMap<>();
+        for (Object[] row : photoRepository.countPhotosGroupedByTag()) {
+            rebuilt.put((String) row[0], ((Number) row[1]).longValue());
+        }
+
+        lock.writeLock().lock();
+        try {
+            countsByTag.clear();
+            countsByTag.putAll(rebuilt);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Tag index rebuilt with {} tags in {}ms", rebuilt.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Rebuild on every node, this one included, for writes that bypass the incremental
+     * updates such as bulk loads.
+     */
+    public void rebuildEverywhere() {
+        notificationService.publish(CHANNEL, REBUILD);
+    }
+
+    /**
+     * Tags starting with the given prefix, most used first. Only the best {@code limit}
+     * matches are kept while scanning, so wide prefixes are not sorted in full.
+     */
+    public List<TagSuggestionDTO> suggest(String prefix, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        String normalizedPrefix = prefix.toLowerCase().trim();
+        // Least used at the head, so it is the one dropped when the heap overflows
+        PriorityQueue<TagSuggestionDTO> best = new PriorityQueue<>(limit + 1, MOST_USED.reversed());
+
+        lock.readLock().lock();
+        try {
+            Map<String, Long> range = normalizedPrefix.isEmpty()
+                    ? countsByTag
+                    : countsByTag.subMap(normalizedPrefix, true, normalizedPrefix + Character.MAX_VALUE, false);
+            range.forEach((tag, count) -> {
+                if (best.size() == limit && count < best.peek().getCount()) {
+                    return;
+                }
+                best.add(TagSuggestionDTO.builder().tag(tag).count(count).build());
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return best.stream().sorted(MOST_USED).toList();
+    }
+
+    public void tagAdded(String tag) {
+        adjustEverywhere(Map.of(tag, 1L));
+    }
+
+    public void tagRemoved(String tag) {
+        adjustEverywhere(Map.of(tag, -1L));
+    }
+
+    public void photoDeleted(Collection<String> tags) {
+        photosDeleted(List.of(tags));
+    }
+
+    /**
+     * Remove the tags of many deleted photos, with one broadcast per distinct tag.
+     */
+    public void photosDeleted(Collection<? extends Collection<String>> tagsByPhoto) {
+        Map<String, Long> deltas = new HashMap<>();
+        tagsByPhoto.forEach(tags -> tags.forEach(tag -> deltas.merge(tag, -1L, Long::sum)));
+        adjustEverywhere(deltas);
+    }
+
+    private void adjustEverywhere(Map<String, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<String, Long> snapshot = Map.copyOf(deltas);
+        TransactionCallbacks.afterCommit(() -> snapshot.forEach(this::adjust));
+        notificationService.publishAll(CHANNEL, snapshot.entrySet().stream()
+                .map(entry -> nodeId + "|" + entry.getValue() + "|" + entry.getKey())
+                .toList());
+    }
+
+    private void adjust(String tag, long delta) {
+        lock.writeLock().lock();
+        try {
+            Long count = countsByTag.merge(tag, delta, Long::sum);
+            if (count <= 0) {
+                countsByTag.remove(tag);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void onNotification(String payload) {
+        // A null payload means notifications may have been missed
+        if (payload == null || REBUILD.equals(payload)) {
+            rebuild();
+            return;
+        }
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed tag index change: {}", payload);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            adjust(parts[2], Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed tag index change: {}", payload);
+        }
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -22,6 +23,8 @@ import java.util.UUID;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UsernameCache usernameCache;
+    private final PhotoCache photoCache;
 
     /**
      * Get the current authenticated user's Cognito sub (subject) from the JWT.
@@ -64,7 +67,11 @@ public class UserService {
     public UserDTO syncUser(String cognitoSub, SyncUserRequest request) {
         log.info("Syncing user with cognitoSub: {}", cognitoSub);
 
-        UserEntity user = userRepository.findByCognitoSub(cognitoSub)
+        Optional<UserEntity> existing = userRepository.findByCognitoSub(cognitoSub);
+        // Captured before the update; null for a newly created user, who has nothing cached
+        String previousUsername = existing.map(UserEntity::getUsername).orElse(null);
+
+        UserEntity user = existing
             .map(existingUser -> {
                 // Update existing user
                 existingUser.setEmail(request.getEmail());
@@ -81,6 +88,9 @@ public class UserService {
             });
 
         UserEntity savedUser = userRepository.save(user);
+        if (previousUsername != null) {
+            onUsernameChanged(savedUser, previousUsername);
+        }
         log.info("User synced successfully: {}", savedUser.getId());
 
         return toDTO(savedUser);
@@ -93,6 +103,7 @@ public class UserService {
     public UserDTO updateProfile(String cognitoSub, UpdateProfileRequest request) {
         UserEntity user = userRepository.findByCognitoSub(cognitoSub)
             .orElseThrow(() -> new IllegalStateException("User not found"));
+        String previousUsername = user.getUsername();
 
         if (request.getUsername() != null && !request.getUsername().isBlank()) {
             // Check if username is already taken by another user
@@ -105,9 +116,21 @@ public class UserService {
         }
 
         UserEntity savedUser = userRepository.save(user);
+        onUsernameChanged(savedUser, previousUsername);
         return toDTO(savedUser);
     }
 
+    /**
+     * Drop cached copies of the user's name, and of their photos which embed it, if it changed.
+     */
+    private void onUsernameChanged(UserEntity user, String previousUsername) {
+        if (Objects.equals(previousUsername, user.getUsername())) {
+            return;
+        }
+        usernameCache.invalidate(user.getId());
+        photoCache.invalidateUploader(user.getId());
+    }
+
     /**
      * Convert entity to DTO.
      */
@@ -0,0 +1,138 @@
+package com.rapidphotoflow.service;
+
+import com.rapidphotoflow.entity.UserEntity;
+import com.rapidphotoflow.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bounded LRU cache of user ID to username.
+ * Misses are resolved with a single batched query so that converting a page
+ * of photos costs at most one user lookup regardless of page size.
+ */
+@Component
+@Slf4j
+public class UsernameCache {
+
+    private static final String CHANNEL = "username_cache_invalidation";
+
+    private final UserRepository userRepository;
+    private final ClusterNotificationService notificationService;
+    private final Map<UUID, String> cache;
+
+    // Loads that started before the latest eviction are returned but not stored
+    private long generation;
+
+    public UsernameCache(
+            UserRepository userRepository,
+            ClusterNotificationService notificationService,
+            @Value("${cache.usernames.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+
+        notificationService.subscribe(CHANNEL, this::onNotification);
+    }
+
+    /**
+     * Resolve the username for a single user, or null if the user does not exist.
+     */
+    public String getUsername(UUID userId) {
+        if (userId == null) {
+            return null;
+        }
+        return getUsernames(Set.of(userId)).get(userId);
+    }
+
+    /**
+     * Resolve usernames for the given user IDs. Unknown users are absent from the result.
+     */
+    public Map<UUID, String> getUsernames(Collection<UUID> userIds) {
+        Map<UUID, String> result = new HashMap<>();
+        Set<UUID> misses = new HashSet<>();
+        long loadGeneration;
+
+        synchronized (cache) {
+            loadGeneration = generation;
+            for (UUID userId : userIds) {
+                if (userId == null) continue;
+                String username = cache.get(userId);
+                if (username != null) {
+                    result.put(userId, username);
+                } else {
+                    misses.add(userId);
+                }
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        Map<UUID, String> loaded = new HashMap<>();
+        for (UserEntity user : userRepository.findAllById(misses)) {
+            loaded.put(user.getId(), user.getUsername());
+        }
+        log.debug("Loaded {} of {} missing usernames", loaded.size(), misses.size());
+
+        synchronized (cache) {
+            if (generation == loadGeneration) {
+                cache.putAll(loaded);
+            }
+        }
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * Drop a cached username. Must be called whenever a user's username changes.
+     * When called inside a transaction the entry is dropped again after commit, so
+     * a concurrent read of the pre-commit row cannot leave a stale name behind.
+     * Other nodes are notified once the transaction commits.
+     */
+    public void invalidate(UUID userId) {
+        if (userId == null) {
+            return;
+        }
+        evict(userId);
+        notificationService.publish(CHANNEL, userId.toString());
+        TransactionCallbacks.afterCommit(() -> evict(userId));
+    }
+
+    private void onNotification(String payload) {
+        // A null payload means notifications may have been missed
+        if (payload == null) {
+            synchronized (cache) {
+                cache.clear();
+                generation++;
+            }
+            return;
+        }
+        try {
+            evict(UUID.fromString(payload));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed username cache invalidation: {}", payload);
+        }
+    }
+
+    private void evict(UUID userId) {
+        synchronized (cache) {
+            cache.remove(userId);
+            generation++;
+        }
+    }
+}